@@ -6,10 +6,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
 
 @ComponentScan
 @EnableAutoConfiguration
+@EnableScheduling
 @Component
 public class CatalogApp {
 
@@ -22,10 +24,10 @@ public class CatalogApp {
 
 	@PostConstruct
 	public void generateTestData() {
-		itemRepository.save(new Item("iPod", 42.0));
-		itemRepository.save(new Item("iPod touch", 21.0));
-		itemRepository.save(new Item("iPod nano", 1.0));
-		itemRepository.save(new Item("Apple TV", 100.0));
+		itemRepository.save(new Item("iPod", 42.0, 100));
+		itemRepository.save(new Item("iPod touch", 21.0, 100));
+		itemRepository.save(new Item("iPod nano", 1.0, 100));
+		itemRepository.save(new Item("Apple TV", 100.0, 100));
 	}
 
 	public static void main(String[] args) {
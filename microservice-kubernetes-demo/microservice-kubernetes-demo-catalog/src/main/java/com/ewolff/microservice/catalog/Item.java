@@ -8,12 +8,18 @@ import javax.persistence.Id;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.ewolff.microservice.catalog.config.PooledSequenceGenerator;
 
 @Entity
 public class Item {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "itemIdGenerator")
+	@GenericGenerator(name = "itemIdGenerator", strategy = PooledSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = "sequence_name", value = "ITEM_SEQ"))
 	private Long id;
 
 	@Column(nullable = false)
@@ -22,6 +28,13 @@ public class Item {
 	@Column(nullable = false)
 	private double price;
 
+	// Not written by entity updates: stock is only changed by the atomic
+	// increments of ItemRepository.adjustStock for orders and restocking, so
+	// saving an item edited in the form cannot overwrite reservations made in
+	// the meantime
+	@Column(nullable = false, updatable = false)
+	private int stock;
+
 	public Item() {
 		super();
 		id = 0l;
@@ -33,6 +46,11 @@ public class Item {
 		this.price = price;
 	}
 
+	public Item(String name, double price, int stock) {
+		this(name, price);
+		this.stock = stock;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -49,6 +67,14 @@ public class Item {
 		this.price = price;
 	}
 
+	public int getStock() {
+		return stock;
+	}
+
+	public void setStock(int stock) {
+		this.stock = stock;
+	}
+
 	public Long getId() {
 		return id;
 	}
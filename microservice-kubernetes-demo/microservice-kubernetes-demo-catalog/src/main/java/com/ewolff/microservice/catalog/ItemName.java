@@ -0,0 +1,12 @@
+package com.ewolff.microservice.catalog;
+
+/**
+ * Id and name of an item, read without the rest of the item.
+ */
+public interface ItemName {
+
+	long getId();
+
+	String getName();
+
+}
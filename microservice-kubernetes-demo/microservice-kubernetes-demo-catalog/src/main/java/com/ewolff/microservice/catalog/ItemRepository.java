@@ -1,16 +1,95 @@
 package com.ewolff.microservice.catalog;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ewolff.microservice.catalog.config.CacheConfig;
+
+/**
+ * The reads by name and of the listings are cached, also for the Spring Data
+ * REST endpoints; the cached items are shared and must not be changed. The
+ * read by id is not cached: Spring Data REST loads an item through it and
+ * changes that instance for a PUT or PATCH. Every write through the
+ * repository evicts the caches once it is done, inside a transaction only
+ * at its commit. The caches are local to each instance, see {@link CacheConfig}.
+ */
 @RepositoryRestResource(collectionResourceRel = "catalog", path = "catalog")
 public interface ItemRepository extends PagingAndSortingRepository<Item, Long> {
 
+	@Override
+	@Cacheable(value = CacheConfig.ITEM_LISTS, key = "'all'")
+	Iterable<Item> findAll();
+
+	@Override
+	@Cacheable(CacheConfig.ITEM_LISTS)
+	Page<Item> findAll(Pageable pageable);
+
+	@Cacheable(CacheConfig.ITEMS_BY_NAME)
 	List<Item> findByName(@Param("name") String name);
 
 	List<Item> findByNameContaining(@Param("name") String name);
 
+	List<Item> findByIdIn(@Param("ids") Collection<Long> ids);
+
+	// Never cached: the search index is rebuilt from it to pick up the writes
+	// of other instances, which a cached listing could still hide
+	@RestResource(exported = false)
+	@Query("select i.id as id, i.name as name from Item i")
+	List<ItemName> findAllNames();
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	<S extends Item> S save(S item);
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	<S extends Item> Iterable<S> saveAll(Iterable<S> items);
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	void deleteById(Long id);
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	void delete(Item item);
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	void deleteAll(Iterable<? extends Item> items);
+
+	@Override
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	void deleteAll();
+
+	// A single UPDATE: concurrent adjustments of the same item cannot get lost.
+	// The stock is part of the cached lookups. Nothing is changed, and 0
+	// returned, if the stock would drop below zero.
+	@RestResource(exported = false)
+	@Transactional
+	@Modifying
+	@Query("update Item i set i.stock = i.stock + :delta where i.id = :id and i.stock + :delta >= 0")
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	int adjustStock(@Param("id") long id, @Param("delta") int delta);
+
+	// For orders that have already been accepted: the stock may drop below
+	// zero, a negative stock is the number of units on backorder
+	@RestResource(exported = false)
+	@Transactional
+	@Modifying
+	@Query("update Item i set i.stock = i.stock + :delta where i.id = :id")
+	@CacheEvict(cacheNames = { CacheConfig.ITEMS_BY_NAME, CacheConfig.ITEM_LISTS }, allEntries = true)
+	int overdrawStock(@Param("id") long id, @Param("delta") int delta);
+
 }
@@ -2,25 +2,43 @@ package com.ewolff.microservice.catalog.config;
 
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+/**
+ * Caches of the item reads of {@code ItemRepository}. Inside a transaction,
+ * puts and evictions wait for the commit, so a rolled back write is never
+ * cached and a stock change is not evicted before it is visible. The Caffeine
+ * statistics are exported as the cache.* metrics.
+ * <p>
+ * Evictions only reach the caches of this instance, so the stock of an item
+ * changed through another instance is visible here once the entry expires.
+ * The time to live is kept short for that reason.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /** Results of the lookups by name */
+    public static final String ITEMS_BY_NAME = "catalogItemsByName";
+
+    /** The full listing and its pages */
+    public static final String ITEM_LISTS = "catalogItemLists";
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("catalogItems");
+    public CacheManager cacheManager(@Value("${cache.ttl:30000}") long ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(ITEMS_BY_NAME, ITEM_LISTS);
         cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
                 .maximumSize(1000)
                 .recordStats());
-        return cacheManager;
+        return new TransactionAwareCacheManagerProxy(cacheManager);
     }
 }
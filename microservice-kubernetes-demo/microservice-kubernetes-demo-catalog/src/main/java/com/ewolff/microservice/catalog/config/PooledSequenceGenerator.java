@@ -0,0 +1,38 @@
+package com.ewolff.microservice.catalog.config;
+
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence ids allocated in blocks: one sequence call reserves a block of ids,
+ * which are then assigned in memory, so inserts do not cost a round trip
+ * per row. The block size is the Hibernate setting
+ * {@value #ALLOCATION_SIZE}
+ * ({@code spring.jpa.properties.hibernate.id.allocation_size}) unless a
+ * generator sets {@code increment_size} itself.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+	public static final String ALLOCATION_SIZE = "hibernate.id.allocation_size";
+
+	public static final String STRATEGY = "com.ewolff.microservice.catalog.config.PooledSequenceGenerator";
+
+	private static final String DEFAULT_ALLOCATION_SIZE = "50";
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings()
+				.get(ALLOCATION_SIZE);
+		params.putIfAbsent(INCREMENT_PARAM, allocationSize != null ? allocationSize.toString() : DEFAULT_ALLOCATION_SIZE);
+		// The value read from the sequence is the first id of the block
+		params.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+		super.configure(type, params, serviceRegistry);
+	}
+
+}
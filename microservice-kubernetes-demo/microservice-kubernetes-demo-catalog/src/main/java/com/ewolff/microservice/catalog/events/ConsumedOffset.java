@@ -0,0 +1,74 @@
+package com.ewolff.microservice.catalog.events;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/**
+ * The offset after the last order event of a partition whose effects have
+ * been committed. It is written in the same transaction as the effects.
+ */
+@Entity
+@IdClass(ConsumedOffset.Key.class)
+public class ConsumedOffset {
+
+    @Id
+    private String topic;
+
+    @Id
+    private int partitionId;
+
+    private long nextOffset;
+
+    public ConsumedOffset() {
+    }
+
+    public ConsumedOffset(String topic, int partitionId) {
+        this.topic = topic;
+        this.partitionId = partitionId;
+    }
+
+    public String getTopic() { return topic; }
+
+    public int getPartitionId() { return partitionId; }
+
+    public long getNextOffset() { return nextOffset; }
+    public void setNextOffset(long nextOffset) { this.nextOffset = nextOffset; }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String topic;
+        private int partitionId;
+
+        public Key() {
+        }
+
+        public Key(String topic, int partitionId) {
+            this.topic = topic;
+            this.partitionId = partitionId;
+        }
+
+        public String getTopic() { return topic; }
+
+        public int getPartitionId() { return partitionId; }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(topic, other.topic) && partitionId == other.partitionId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, partitionId);
+        }
+    }
+}
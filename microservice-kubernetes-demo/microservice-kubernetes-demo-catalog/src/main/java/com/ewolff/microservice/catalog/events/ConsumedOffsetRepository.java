@@ -0,0 +1,9 @@
+package com.ewolff.microservice.catalog.events;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+@RepositoryRestResource(exported = false)
+public interface ConsumedOffsetRepository extends CrudRepository<ConsumedOffset, ConsumedOffset.Key> {
+
+}
@@ -0,0 +1,35 @@
+package com.ewolff.microservice.catalog.events;
+
+import java.time.LocalDateTime;
+
+public class ItemEvent {
+
+    public enum EventType {
+        ITEM_CREATED,
+        ITEM_UPDATED,
+        ITEM_DELETED
+    }
+
+    private Long itemId;
+    private EventType eventType;
+    private LocalDateTime timestamp;
+
+    public ItemEvent() {
+    }
+
+    public ItemEvent(Long itemId, EventType eventType) {
+        this.itemId = itemId;
+        this.eventType = eventType;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public EventType getEventType() { return eventType; }
+    public void setEventType(EventType eventType) { this.eventType = eventType; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,70 @@
+package com.ewolff.microservice.catalog.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import com.ewolff.microservice.catalog.events.ItemEvent.EventType;
+
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemEventPublisher.class);
+
+    private final KafkaTemplate<String, ItemEvent> kafkaTemplate;
+
+    @Value("${kafka.topic.item-events:item-events}")
+    private String itemEventsTopic;
+
+    @Autowired
+    public ItemEventPublisher(KafkaTemplate<String, ItemEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void publishItemCreated(long itemId) {
+        sendEvent(new ItemEvent(itemId, EventType.ITEM_CREATED));
+    }
+
+    public void publishItemUpdated(long itemId) {
+        sendEvent(new ItemEvent(itemId, EventType.ITEM_UPDATED));
+    }
+
+    public void publishItemDeleted(long itemId) {
+        sendEvent(new ItemEvent(itemId, EventType.ITEM_DELETED));
+    }
+
+    private void sendEvent(ItemEvent event) {
+        try {
+            // Keyed by item id, so all changes of an item stay in order on one partition
+            ListenableFuture<SendResult<String, ItemEvent>> future =
+                kafkaTemplate.send(itemEventsTopic, String.valueOf(event.getItemId()), event);
+
+            future.addCallback(new ListenableFutureCallback<SendResult<String, ItemEvent>>() {
+                @Override
+                public void onSuccess(SendResult<String, ItemEvent> result) {
+                    log.info("Item event sent successfully: itemId={}, type={}, partition={}, offset={}",
+                            event.getItemId(), event.getEventType(),
+                            result.getRecordMetadata().partition(),
+                            result.getRecordMetadata().offset());
+                }
+
+                @Override
+                public void onFailure(Throwable ex) {
+                    log.error("Failed to send item event: itemId={}, type={}, error={}",
+                            event.getItemId(), event.getEventType(), ex.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Exception while sending item event: itemId={}, error={}",
+                    event.getItemId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ewolff.microservice.catalog.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.catalog.Item;
+
+/**
+ * Publishes item events for writes through the Spring Data REST endpoints.
+ * Writes through {@code CatalogController} publish their events there.
+ */
+@Component
+@RepositoryEventHandler(Item.class)
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemRepositoryEventHandler {
+
+    private final ItemEventPublisher itemEventPublisher;
+
+    @Autowired
+    public ItemRepositoryEventHandler(ItemEventPublisher itemEventPublisher) {
+        this.itemEventPublisher = itemEventPublisher;
+    }
+
+    @HandleAfterCreate
+    public void afterCreate(Item item) {
+        itemEventPublisher.publishItemCreated(item.getId());
+    }
+
+    @HandleAfterSave
+    public void afterSave(Item item) {
+        itemEventPublisher.publishItemUpdated(item.getId());
+    }
+
+    @HandleAfterDelete
+    public void afterDelete(Item item) {
+        itemEventPublisher.publishItemDeleted(item.getId());
+    }
+}
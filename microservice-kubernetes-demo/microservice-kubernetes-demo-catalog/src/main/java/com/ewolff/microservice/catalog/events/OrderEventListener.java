@@ -1,49 +1,184 @@
 package com.ewolff.microservice.catalog.events;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.ewolff.microservice.catalog.ItemRepository;
+import com.ewolff.microservice.catalog.events.OrderEvent.EventType;
+import com.ewolff.microservice.catalog.events.OrderEvent.OrderLineEvent;
+import com.ewolff.microservice.catalog.sales.SalesAnalytics;
+
+/**
+ * Reserves stock for created orders and releases it for deleted ones. The
+ * stock changes of a poll are summed up per item and written as one atomic
+ * increment per item, so a popular item costs one UPDATE per poll and
+ * concurrent consumers never read-modify-write the same row. Items that are
+ * sold out are overdrawn into a negative stock and logged. Events that
+ * have been processed before are skipped, see {@link ProcessedEventStore}.
+ * Created orders are also counted in the {@link SalesAnalytics}. A record
+ * that cannot be read fails on its own, see {@link KafkaConsumerConfig}.
+ */
 @Component
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
-public class OrderEventListener {
+public class OrderEventListener implements ConsumerSeekAware {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventListener.class);
 
+    private final ItemRepository itemRepository;
+
+    private final ProcessedEventStore processedEventStore;
+
+    private final SalesAnalytics salesAnalytics;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderEventListener(ItemRepository itemRepository, ProcessedEventStore processedEventStore,
+            SalesAnalytics salesAnalytics, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.processedEventStore = processedEventStore;
+        this.salesAnalytics = salesAnalytics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Resume after the last events whose effects have been committed here, as
+    // the offsets committed to Kafka afterwards may lag behind. The assigned
+    // positions are the committed offsets: if they are ahead, another instance
+    // with its own database has consumed the partition since, so they win.
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.forEach((partition, position) -> processedEventStore.nextOffset(partition)
+                .filter(offset -> position == null || offset > position)
+                .ifPresent(offset -> callback.seek(partition.topic(), partition.partition(), offset)));
+    }
+
+    // All events of one poll are handled in one transaction, so downstream
+    // updates cost one commit per poll instead of one per event. The records
+    // before one that cannot be read are committed, then the failure names
+    // its index, so the error handler skips just that record.
     @KafkaListener(topics = "${kafka.topic.order-events:order-events}", 
                    groupId = "${spring.kafka.consumer.group-id:catalog-service}",
                    containerFactory = "kafkaListenerContainerFactory")
-    public void handleOrderEvent(OrderEvent event) {
-        log.info("Received order event: orderId={}, type={}, items={}",
+    public void handleOrderEvents(List<ConsumerRecord<String, OrderEvent>> records) {
+        log.info("Received {} order events", records.size());
+        List<ConsumerRecord<String, OrderEvent>> readable = records.subList(0, firstUnreadable(records));
+        if (!readable.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> handleReadable(readable));
+        }
+        if (readable.size() < records.size()) {
+            ConsumerRecord<String, OrderEvent> record = records.get(readable.size());
+            throw new BatchListenerFailedException("Order event at offset " + record.offset() + " of partition "
+                    + record.partition() + " could not be read", readable.size());
+        }
+    }
+
+    // Records whose value failed to deserialize arrive without one
+    private static int firstUnreadable(List<? extends ConsumerRecord<?, ?>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).value() == null) {
+                return i;
+            }
+        }
+        return records.size();
+    }
+
+    private void handleReadable(List<ConsumerRecord<String, OrderEvent>> records) {
+        List<OrderEvent> events = processedEventStore.claim(records);
+        // Sorted by item id: all consumers lock the rows in the same order
+        Map<Long, Integer> stockChanges = new TreeMap<>();
+        events.forEach(event -> handleOrderEvent(event, stockChanges));
+        stockChanges.forEach(this::adjustStock);
+        recordSales(events);
+    }
+
+    private void handleOrderEvent(OrderEvent event, Map<Long, Integer> stockChanges) {
+        log.debug("Received order event: orderId={}, type={}, items={}",
                 event.getOrderId(), event.getEventType(), 
                 event.getOrderLines() != null ? event.getOrderLines().size() : 0);
-        
+        if (event.getEventType() == null) {
+            log.warn("Order event without type ignored for order {}", event.getOrderId());
+            return;
+        }
         switch (event.getEventType()) {
             case ORDER_CREATED:
-                handleOrderCreated(event);
+                addStockChanges(event, -1, stockChanges);
                 break;
             case ORDER_DELETED:
-                handleOrderDeleted(event);
+                addStockChanges(event, 1, stockChanges);
                 break;
             default:
                 log.warn("Unknown event type: {}", event.getEventType());
         }
     }
-    
-    private void handleOrderCreated(OrderEvent event) {
-        // Can be used for: inventory deduction, sales statistics, etc.
-        log.info("Processing ORDER_CREATED: orderId={}", event.getOrderId());
-        if (event.getOrderLines() != null) {
-            event.getOrderLines().forEach(line -> 
-                log.info("  Item ordered: itemId={}, count={}", line.getItemId(), line.getCount())
-            );
+
+    private void addStockChanges(OrderEvent event, int sign, Map<Long, Integer> stockChanges) {
+        if (event.getOrderLines() == null) {
+            // Deletion events of older order services carry no lines
+            log.warn("No order lines in {} for order {}, stock is not changed", event.getEventType(),
+                    event.getOrderId());
+            return;
+        }
+        for (OrderLineEvent line : event.getOrderLines()) {
+            if (line.getItemId() == null) {
+                log.warn("Order line without item id in order {}", event.getOrderId());
+                continue;
+            }
+            stockChanges.merge(line.getItemId(), sign * line.getCount(), Integer::sum);
         }
     }
-    
-    private void handleOrderDeleted(OrderEvent event) {
-        // Can be used for: inventory restoration, etc.
-        log.info("Processing ORDER_DELETED: orderId={}", event.getOrderId());
+
+    // Counted after the commit, so a poll that is retried is counted once
+    private void recordSales(List<OrderEvent> events) {
+        Map<Long, Integer> unitsPerItem = new HashMap<>();
+        for (OrderEvent event : events) {
+            if (event.getEventType() == EventType.ORDER_CREATED && event.getOrderLines() != null) {
+                event.getOrderLines().stream().filter(line -> line.getItemId() != null)
+                        .forEach(line -> unitsPerItem.merge(line.getItemId(), line.getCount(), Integer::sum));
+            }
+        }
+        if (unitsPerItem.isEmpty()) {
+            return;
+        }
+        Map<Long, Double> prices = new HashMap<>();
+        itemRepository.findByIdIn(unitsPerItem.keySet()).forEach(item -> prices.put(item.getId(), item.getPrice()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                salesAnalytics.record(unitsPerItem, prices);
+            }
+        });
+    }
+
+    private void adjustStock(Long itemId, Integer delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (itemRepository.adjustStock(itemId, delta) > 0) {
+            return;
+        }
+        // The orders have been accepted already, so they are backordered
+        if (delta < 0 && itemRepository.overdrawStock(itemId, delta) > 0) {
+            log.warn("Item {} oversold, stock overdrawn by an order of {} units", itemId, -delta);
+            return;
+        }
+        log.warn("Stock of unknown item {} not changed by {}", itemId, delta);
     }
 }
@@ -0,0 +1,74 @@
+package com.ewolff.microservice.catalog.events;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * An order event whose effects have been committed. See
+ * {@link ProcessedEventStore}.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "processedAt"))
+public class ProcessedEvent implements Persistable<UUID> {
+
+    @Id
+    private UUID eventId;
+
+    private LocalDateTime processedAt;
+
+    // Rows are only ever inserted, without looking them up first
+    @Transient
+    private boolean newEvent = true;
+
+    public ProcessedEvent() {
+    }
+
+    public ProcessedEvent(UUID eventId, LocalDateTime processedAt) {
+        this.eventId = eventId;
+        this.processedAt = processedAt;
+    }
+
+    @Override
+    public UUID getId() { return eventId; }
+
+    @Override
+    public boolean isNew() { return newEvent; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.newEvent = false; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+
+    /**
+     * The id of the event, or null if the event cannot be told apart from
+     * others. Order ids are only unique within one order service instance, so
+     * events are identified by the event id the order service assigns. Events
+     * of older order services carry none and fall back to an id derived from
+     * order id and event type.
+     */
+    public static UUID idOf(OrderEvent event) {
+        if (event == null) {
+            return null;
+        }
+        if (event.getEventId() != null) {
+            return event.getEventId();
+        }
+        if (event.getOrderId() == null || event.getEventType() == null) {
+            return null;
+        }
+        return UUID.nameUUIDFromBytes(
+                (event.getOrderId() + "/" + event.getEventType()).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,43 @@
+package com.ewolff.microservice.catalog.sales;
+
+public class ItemSales {
+
+	private final long itemId;
+
+	private String name;
+
+	private long units;
+
+	private double revenue;
+
+	public ItemSales(long itemId) {
+		super();
+		this.itemId = itemId;
+	}
+
+	void add(long units, double revenue) {
+		this.units += units;
+		this.revenue += revenue;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public double getRevenue() {
+		return revenue;
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.ewolff.microservice.catalog.sales;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Live sales per item, counted from the order events. Sales are added to
+ * fixed time buckets kept in a ring; a window is the sum of its buckets, so
+ * recording and reporting never look at single orders. Buckets older than the
+ * ring are overwritten. The counts are held in memory only and start from zero
+ * on every restart.
+ */
+@Component
+public class SalesAnalytics {
+
+	private final Clock clock;
+
+	private final long bucketMillis;
+
+	private final Bucket[] buckets;
+
+	@Autowired
+	public SalesAnalytics(@Value("${sales.bucket-seconds:60}") int bucketSeconds,
+			@Value("${sales.buckets:60}") int bucketCount) {
+		this(Clock.systemUTC(), bucketSeconds, bucketCount);
+	}
+
+	SalesAnalytics(Clock clock, int bucketSeconds, int bucketCount) {
+		this.clock = clock;
+		this.bucketMillis = bucketSeconds * 1000L;
+		this.buckets = new Bucket[bucketCount];
+	}
+
+	/**
+	 * Adds the units sold per item. Revenue is counted with the given prices,
+	 * items without a price count units only.
+	 */
+	public synchronized void record(Map<Long, Integer> unitsPerItem, Map<Long, Double> prices) {
+		long index = currentBucket();
+		int slot = slot(index);
+		if (buckets[slot] == null || buckets[slot].index != index) {
+			buckets[slot] = new Bucket(index);
+		}
+		Bucket bucket = buckets[slot];
+		unitsPerItem.forEach((itemId, units) -> bucket.items.computeIfAbsent(itemId, id -> new ItemSales(id))
+				.add(units, units * prices.getOrDefault(itemId, 0.0)));
+	}
+
+	/**
+	 * Sales of the last {@code bucketCount} buckets including the current one,
+	 * which is still being filled.
+	 */
+	public SalesReport sliding(int bucketCount, int top) {
+		long current = currentBucket();
+		return report(current - limit(bucketCount) + 1, current + 1, top);
+	}
+
+	/**
+	 * Sales of the last completed window of {@code bucketCount} buckets.
+	 * Windows are aligned to multiples of their length and do not overlap.
+	 * The last completed window reaches back up to twice its length from the
+	 * current bucket, so it is at most half the ring long.
+	 */
+	public SalesReport tumbling(int bucketCount, int top) {
+		int length = Math.max(1, Math.min(bucketCount, buckets.length / 2));
+		long end = currentBucket() / length * length;
+		return report(end - length, end, top);
+	}
+
+	public long getBucketMillis() {
+		return bucketMillis;
+	}
+
+	public int getBucketCount() {
+		return buckets.length;
+	}
+
+	private int limit(int bucketCount) {
+		return Math.max(1, Math.min(bucketCount, buckets.length));
+	}
+
+	private synchronized SalesReport report(long from, long to, int top) {
+		Map<Long, ItemSales> items = new HashMap<>();
+		for (long index = from; index < to; index++) {
+			Bucket bucket = buckets[slot(index)];
+			if (bucket != null && bucket.index == index) {
+				bucket.items.values().forEach(sales -> items
+						.computeIfAbsent(sales.getItemId(), id -> new ItemSales(id)).add(sales.getUnits(),
+								sales.getRevenue()));
+			}
+		}
+		long units = 0;
+		double revenue = 0.0;
+		// Min-heap of the best sellers so far: the top n cost O(items * log n)
+		Comparator<ItemSales> byUnits = Comparator.comparingLong(ItemSales::getUnits)
+				.thenComparingDouble(ItemSales::getRevenue);
+		PriorityQueue<ItemSales> heap = new PriorityQueue<>(byUnits);
+		for (ItemSales sales : items.values()) {
+			units += sales.getUnits();
+			revenue += sales.getRevenue();
+			if (top > 0) {
+				heap.add(sales);
+				if (heap.size() > top) {
+					heap.poll();
+				}
+			}
+		}
+		List<ItemSales> topItems = new ArrayList<>(heap);
+		topItems.sort(byUnits.reversed());
+		return new SalesReport(Instant.ofEpochMilli(from * bucketMillis), Instant.ofEpochMilli(to * bucketMillis),
+				units, revenue, topItems);
+	}
+
+	private int slot(long index) {
+		return (int) Math.floorMod(index, (long) buckets.length);
+	}
+
+	private long currentBucket() {
+		return clock.millis() / bucketMillis;
+	}
+
+	private static class Bucket {
+
+		private final long index;
+
+		private final Map<Long, ItemSales> items = new HashMap<>();
+
+		Bucket(long index) {
+			this.index = index;
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.ewolff.microservice.catalog.sales;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Publishes the sliding sales window as gauges. The best sellers are one time
+ * series per item and only exist while the item is among the top n.
+ */
+@Component
+public class SalesMetrics {
+
+	private final SalesAnalytics salesAnalytics;
+
+	private final AtomicReference<SalesReport> report = new AtomicReference<>();
+
+	private final MultiGauge topUnits;
+
+	private final MultiGauge topRevenue;
+
+	@Value("${sales.metrics.buckets:5}")
+	private int buckets;
+
+	@Value("${sales.metrics.top:10}")
+	private int top;
+
+	@Autowired
+	public SalesMetrics(SalesAnalytics salesAnalytics, MeterRegistry meterRegistry) {
+		this.salesAnalytics = salesAnalytics;
+		Gauge.builder("catalog.sales.units", report, r -> r.get() == null ? 0 : r.get().getUnits())
+				.description("Units sold in the sliding window").register(meterRegistry);
+		Gauge.builder("catalog.sales.revenue", report, r -> r.get() == null ? 0 : r.get().getRevenue())
+				.description("Revenue in the sliding window").register(meterRegistry);
+		topUnits = MultiGauge.builder("catalog.sales.top.units").description("Units sold of the best sellers")
+				.register(meterRegistry);
+		topRevenue = MultiGauge.builder("catalog.sales.top.revenue").description("Revenue of the best sellers")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${sales.metrics.refresh:15000}")
+	public void refresh() {
+		SalesReport current = salesAnalytics.sliding(buckets, top);
+		report.set(current);
+		List<ItemSales> items = current.getTopItems();
+		topUnits.register(items.stream()
+				.map(item -> MultiGauge.Row.of(Tags.of("item", Long.toString(item.getItemId())), item.getUnits()))
+				.collect(Collectors.toList()), true);
+		topRevenue.register(items.stream()
+				.map(item -> MultiGauge.Row.of(Tags.of("item", Long.toString(item.getItemId())), item.getRevenue()))
+				.collect(Collectors.toList()), true);
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.ewolff.microservice.catalog.sales;
+
+import java.time.Instant;
+import java.util.List;
+
+public class SalesReport {
+
+	private final Instant from;
+
+	private final Instant to;
+
+	private final long units;
+
+	private final double revenue;
+
+	private final List<ItemSales> topItems;
+
+	public SalesReport(Instant from, Instant to, long units, double revenue, List<ItemSales> topItems) {
+		super();
+		this.from = from;
+		this.to = to;
+		this.units = units;
+		this.revenue = revenue;
+		this.topItems = topItems;
+	}
+
+	public Instant getFrom() {
+		return from;
+	}
+
+	public Instant getTo() {
+		return to;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public double getRevenue() {
+		return revenue;
+	}
+
+	public List<ItemSales> getTopItems() {
+		return topItems;
+	}
+
+}
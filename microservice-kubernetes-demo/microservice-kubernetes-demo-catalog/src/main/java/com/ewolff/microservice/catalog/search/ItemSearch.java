@@ -0,0 +1,77 @@
+package com.ewolff.microservice.catalog.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.catalog.Item;
+import com.ewolff.microservice.catalog.ItemRepository;
+
+/**
+ * Ranked item search on the {@link ItemSearchIndex}. The index of this
+ * instance is updated by {@link ItemSearchIndexer}; the periodic rebuild from
+ * the database picks up items written through other instances of the catalog.
+ */
+@Component
+public class ItemSearch {
+
+	private final Logger log = LoggerFactory.getLogger(ItemSearch.class);
+
+	private final ItemSearchIndex index;
+
+	private final ItemRepository itemRepository;
+
+	private final int maxPageSize;
+
+	@Autowired
+	public ItemSearch(ItemSearchIndex index, ItemRepository itemRepository,
+			@Value("${search.max-page-size:100}") int maxPageSize) {
+		this.index = index;
+		this.itemRepository = itemRepository;
+		this.maxPageSize = maxPageSize;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${search.rebuild-interval:300000}",
+			fixedDelayString = "${search.rebuild-interval:300000}")
+	public void rebuild() {
+		long since = index.changeCount();
+		Map<Long, String> names = new HashMap<>();
+		itemRepository.findAllNames().forEach(item -> names.put(item.getId(), item.getName()));
+		index.replaceAll(names, since);
+		log.info("Item search index rebuilt with {} items", index.size());
+	}
+
+	/**
+	 * Returns one page of the items matching the query, best match first.
+	 * Only the items of the page are read from the database.
+	 */
+	public ItemSearchResult search(String query, int page, int size) {
+		int pageSize = Math.max(1, Math.min(size, maxPageSize));
+		// Pages past Integer.MAX_VALUE hits are empty, the total is still counted
+		long offset = (long) Math.max(0, page) * pageSize;
+		ItemSearchIndex.Hits hits = index.search(query, (int) Math.min(offset, Integer.MAX_VALUE), pageSize);
+		List<Item> items = hits.getItemIds().isEmpty() ? Collections.<Item>emptyList() : rank(hits.getItemIds());
+		return new ItemSearchResult(query, Math.max(0, page), pageSize, hits.getTotal(), items);
+	}
+
+	// Items deleted since the search are skipped
+	private List<Item> rank(List<Long> itemIds) {
+		Map<Long, Item> items = itemRepository.findByIdIn(itemIds).stream()
+				.collect(Collectors.toMap(Item::getId, Function.identity()));
+		return itemIds.stream().map(items::get).filter(item -> item != null).collect(Collectors.toList());
+	}
+
+}
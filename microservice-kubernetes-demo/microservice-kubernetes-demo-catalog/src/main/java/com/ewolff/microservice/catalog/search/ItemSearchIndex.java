@@ -0,0 +1,347 @@
+package com.ewolff.microservice.catalog.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over the item names. Names are split into lower
+ * case terms; the sorted term map answers exact and prefix lookups, and a
+ * trigram index over the terms finds infix and misspelled terms. A query only
+ * looks at the terms and items it matches, not at the whole catalog.
+ * <p>
+ * Every query term has to match. Per term an item scores 4 for an exact term,
+ * 3 for a prefix, 2 for an infix and 1 for a term within the edit distance;
+ * items are ranked by the sum, then by the shorter name.
+ * <p>
+ * A single edit can change every trigram of a three letter term, so the
+ * misspellings of those terms are looked up among the indexed terms of
+ * similar length instead of through the trigrams.
+ */
+@Component
+public class ItemSearchIndex {
+
+	private static final int EXACT = 4;
+	private static final int PREFIX = 3;
+	private static final int INFIX = 2;
+	private static final int FUZZY = 1;
+
+	// Longest query term whose misspellings are not found by the trigrams
+	private static final int SHORT_TERM = 3;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Long, String> names = new HashMap<>();
+
+	private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+
+	private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+	// Terms within one edit of a short query term, by length
+	private final Map<Integer, Set<String>> shortTerms = new HashMap<>();
+
+	// Change number of the items changed since the last rebuild, see replaceAll
+	private final Map<Long, Long> changes = new HashMap<>();
+
+	private long changeCount;
+
+	public void put(long itemId, String name) {
+		lock.writeLock().lock();
+		try {
+			unindex(itemId);
+			index(itemId, name);
+			changes.put(itemId, ++changeCount);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(long itemId) {
+		lock.writeLock().lock();
+		try {
+			unindex(itemId);
+			changes.put(itemId, ++changeCount);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Number of changes so far. Pass it to {@link #replaceAll(Map, long)}
+	 * before reading the names for a rebuild.
+	 */
+	public long changeCount() {
+		lock.readLock().lock();
+		try {
+			return changeCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the index with the given names. Items changed after
+	 * {@code since} keep their current entry, as the names may have been read
+	 * before that change.
+	 */
+	public void replaceAll(Map<Long, String> itemNames, long since) {
+		lock.writeLock().lock();
+		try {
+			Map<Long, String> current = new HashMap<>(itemNames);
+			changes.forEach((itemId, change) -> {
+				if (change > since) {
+					if (names.containsKey(itemId)) {
+						current.put(itemId, names.get(itemId));
+					} else {
+						current.remove(itemId);
+					}
+				}
+			});
+			names.clear();
+			postings.clear();
+			trigrams.clear();
+			shortTerms.clear();
+			changes.clear();
+			current.forEach(this::index);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return names.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the ids of the matching items from {@code offset} on, best match
+	 * first, together with the number of all matches.
+	 */
+	public Hits search(String query, int offset, int limit) {
+		Set<String> queryTerms = new LinkedHashSet<>(terms(query));
+		if (queryTerms.isEmpty()) {
+			return new Hits(0, Collections.emptyList());
+		}
+		lock.readLock().lock();
+		try {
+			Map<Long, Integer> scores = null;
+			for (String queryTerm : queryTerms) {
+				Map<Long, Integer> termScores = score(queryTerm);
+				if (scores == null) {
+					scores = termScores;
+				} else {
+					scores.keySet().retainAll(termScores.keySet());
+					scores.replaceAll((itemId, score) -> score + termScores.get(itemId));
+				}
+				if (scores.isEmpty()) {
+					return new Hits(0, Collections.emptyList());
+				}
+			}
+			List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+			ranked.sort(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+					.thenComparingInt(hit -> names.get(hit.getKey()).length())
+					.thenComparing(Map.Entry::getKey));
+			List<Long> itemIds = new ArrayList<>();
+			for (int i = offset; i < ranked.size() && itemIds.size() < limit; i++) {
+				itemIds.add(ranked.get(i).getKey());
+			}
+			return new Hits(ranked.size(), itemIds);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Best score of every item with a term matching the query term
+	private Map<Long, Integer> score(String queryTerm) {
+		Map<Long, Integer> scores = new HashMap<>();
+		Set<Long> exact = postings.get(queryTerm);
+		if (exact != null) {
+			exact.forEach(itemId -> scores.put(itemId, EXACT));
+		}
+		postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()
+				.forEach(itemIds -> itemIds.forEach(itemId -> scores.merge(itemId, PREFIX, Math::max)));
+		if (queryTerm.length() < 3) {
+			return scores;
+		}
+
+		// Infix: the term contains all trigrams of the query term
+		Set<String> inner = trigrams(queryTerm, false);
+		candidates(inner).forEach((term, shared) -> {
+			if (shared == inner.size() && term.contains(queryTerm) && !term.startsWith(queryTerm)) {
+				postings.get(term).forEach(itemId -> scores.merge(itemId, INFIX, Math::max));
+			}
+		});
+
+		// Fuzzy: an edit changes at most four trigrams of a term
+		int maxEdits = queryTerm.length() > 5 ? 2 : 1;
+		if (queryTerm.length() <= SHORT_TERM) {
+			for (int length = queryTerm.length() - 1; length <= queryTerm.length() + 1; length++) {
+				for (String term : shortTerms.getOrDefault(length, Collections.emptySet())) {
+					Set<Long> itemIds = postings.get(term);
+					if (itemIds != null && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+						itemIds.forEach(itemId -> scores.merge(itemId, FUZZY, Math::max));
+					}
+				}
+			}
+			return scores;
+		}
+		Set<String> padded = trigrams(queryTerm, true);
+		candidates(padded).forEach((term, shared) -> {
+			if (shared >= padded.size() - 4 * maxEdits && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+				postings.get(term).forEach(itemId -> scores.merge(itemId, FUZZY, Math::max));
+			}
+		});
+		return scores;
+	}
+
+	// Terms sharing trigrams with the query term, with the number shared
+	private Map<String, Integer> candidates(Set<String> queryTrigrams) {
+		Map<String, Integer> candidates = new HashMap<>();
+		for (String trigram : queryTrigrams) {
+			Set<String> terms = trigrams.get(trigram);
+			if (terms != null) {
+				terms.forEach(term -> candidates.merge(term, 1, Integer::sum));
+			}
+		}
+		return candidates;
+	}
+
+	private void index(long itemId, String name) {
+		names.put(itemId, name);
+		for (String term : terms(name)) {
+			Set<Long> itemIds = postings.get(term);
+			if (itemIds == null) {
+				itemIds = new HashSet<>();
+				postings.put(term, itemIds);
+				for (String trigram : trigrams(term, true)) {
+					trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+				}
+				if (term.length() <= SHORT_TERM + 1) {
+					shortTerms.computeIfAbsent(term.length(), l -> new HashSet<>()).add(term);
+				}
+			}
+			itemIds.add(itemId);
+		}
+	}
+
+	private void unindex(long itemId) {
+		String name = names.remove(itemId);
+		if (name == null) {
+			return;
+		}
+		for (String term : terms(name)) {
+			Set<Long> itemIds = postings.get(term);
+			if (itemIds != null && itemIds.remove(itemId) && itemIds.isEmpty()) {
+				postings.remove(term);
+				for (String trigram : trigrams(term, true)) {
+					Set<String> terms = trigrams.get(trigram);
+					terms.remove(term);
+					if (terms.isEmpty()) {
+						trigrams.remove(trigram);
+					}
+				}
+				Set<String> sameLength = shortTerms.get(term.length());
+				if (sameLength != null && sameLength.remove(term) && sameLength.isEmpty()) {
+					shortTerms.remove(term.length());
+				}
+			}
+		}
+	}
+
+	static List<String> terms(String text) {
+		List<String> terms = new ArrayList<>();
+		if (text == null) {
+			return terms;
+		}
+		for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+			if (!term.isEmpty()) {
+				terms.add(term);
+			}
+		}
+		return terms;
+	}
+
+	// Padded with word boundaries, so short terms have trigrams as well and
+	// the start and end of a term count
+	private static Set<String> trigrams(String term, boolean padded) {
+		String text = padded ? "$" + term + "$" : term;
+		Set<String> trigrams = new HashSet<>();
+		for (int i = 0; i + 3 <= text.length(); i++) {
+			trigrams.add(text.substring(i, i + 3));
+		}
+		return trigrams;
+	}
+
+	// Edit distance counting insertions, deletions, substitutions and swaps of
+	// adjacent characters, or max + 1 as soon as it is known to exceed max
+	static int editDistance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) {
+			return max + 1;
+		}
+		int[] beforePrevious = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+				}
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > max) {
+				return max + 1;
+			}
+			int[] swap = beforePrevious;
+			beforePrevious = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	public static class Hits {
+
+		private final int total;
+
+		private final List<Long> itemIds;
+
+		Hits(int total, List<Long> itemIds) {
+			this.total = total;
+			this.itemIds = itemIds;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		public List<Long> getItemIds() {
+			return itemIds;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.ewolff.microservice.catalog.search;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.catalog.Item;
+
+/**
+ * Updates the search index for every committed write of an {@link Item},
+ * whether it comes from the controller, Spring Data REST or the test data.
+ * Hibernate calls the listener after the commit, so a rolled back write never
+ * shows up in the index. Bulk updates such as the stock adjustments do not
+ * change names and are not seen here.
+ */
+@Component
+public class ItemSearchIndexer
+		implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient ItemSearchIndex index;
+
+	@Autowired
+	public ItemSearchIndexer(ItemSearchIndex index, EntityManagerFactory entityManagerFactory) {
+		this.index = index;
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class).getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return Item.class.equals(persister.getMappedClass());
+	}
+
+	/**
+	 * Still abstract in Hibernate 5.4; only reached through the default
+	 * {@link #requiresPostCommitHandling(EntityPersister)}, which is overridden.
+	 */
+	@Override
+	@Deprecated
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return requiresPostCommitHandling(persister);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Item) {
+			Item item = (Item) event.getEntity();
+			index.put(item.getId(), item.getName());
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (event.getEntity() instanceof Item) {
+			Item item = (Item) event.getEntity();
+			index.put(item.getId(), item.getName());
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Item) {
+			index.remove(((Item) event.getEntity()).getId());
+		}
+	}
+
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.ewolff.microservice.catalog.search;
+
+import java.util.List;
+
+import com.ewolff.microservice.catalog.Item;
+
+public class ItemSearchResult {
+
+	private final String query;
+
+	private final int page;
+
+	private final int size;
+
+	private final int total;
+
+	private final List<Item> items;
+
+	public ItemSearchResult(String query, int page, int size, int total, List<Item> items) {
+		super();
+		this.query = query;
+		this.page = page;
+		this.size = size;
+		this.total = total;
+		this.items = items;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+}
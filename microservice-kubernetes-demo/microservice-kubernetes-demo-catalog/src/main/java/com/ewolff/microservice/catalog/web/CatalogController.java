@@ -1,7 +1,9 @@
 package com.ewolff.microservice.catalog.web;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,15 +13,26 @@ import org.springframework.web.servlet.ModelAndView;
 
 import com.ewolff.microservice.catalog.Item;
 import com.ewolff.microservice.catalog.ItemRepository;
+import com.ewolff.microservice.catalog.events.ItemEventPublisher;
+import com.ewolff.microservice.catalog.search.ItemSearch;
+import com.ewolff.microservice.catalog.search.ItemSearchResult;
 
 @Controller
 public class CatalogController {
 
 	private final ItemRepository itemRepository;
+	private final ItemEventPublisher itemEventPublisher;
+	private final ItemSearch itemSearch;
+	private final int searchPageSize;
 
 	@Autowired
-	public CatalogController(ItemRepository itemRepository) {
+	public CatalogController(ItemRepository itemRepository,
+			@Autowired(required = false) ItemEventPublisher itemEventPublisher, ItemSearch itemSearch,
+			@Value("${search.page-size:20}") int searchPageSize) {
 		this.itemRepository = itemRepository;
+		this.itemEventPublisher = itemEventPublisher;
+		this.itemSearch = itemSearch;
+		this.searchPageSize = searchPageSize;
 	}
 
 	@RequestMapping(value = "/{id}.html", method = RequestMethod.GET, produces = MediaType.TEXT_HTML_VALUE)
@@ -40,6 +53,9 @@ public class CatalogController {
 	@RequestMapping(value = "/form.html", method = RequestMethod.POST)
 	public ModelAndView post(Item Item) {
 		Item = itemRepository.save(Item);
+		if (itemEventPublisher != null) {
+			itemEventPublisher.publishItemCreated(Item.getId());
+		}
 		return new ModelAndView("success");
 	}
 
@@ -47,23 +63,50 @@ public class CatalogController {
 	public ModelAndView put(@PathVariable("id") long id, Item item) {
 		item.setId(id);
 		itemRepository.save(item);
+		if (itemEventPublisher != null) {
+			itemEventPublisher.publishItemUpdated(id);
+		}
 		return new ModelAndView("success");
 	}
 
+	// Adds delivered units to the stock; orders only ever reserve and release
+	@RequestMapping(value = "/{id}/restock", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Item> restock(@PathVariable("id") long id, @RequestParam("units") int units) {
+		if (units <= 0) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (itemRepository.adjustStock(id, units) == 0) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(itemRepository.findById(id).get());
+	}
+
 	@RequestMapping(value = "/searchForm.html", produces = MediaType.TEXT_HTML_VALUE)
 	public ModelAndView searchForm() {
 		return new ModelAndView("searchForm");
 	}
 
 	@RequestMapping(value = "/searchByName.html", produces = MediaType.TEXT_HTML_VALUE)
-	public ModelAndView search(@RequestParam("query") String query) {
+	public ModelAndView search(@RequestParam("query") String query,
+			@RequestParam(value = "page", defaultValue = "0") int page) {
 		return new ModelAndView("itemlist", "items",
-				itemRepository.findByNameContaining(query));
+				itemSearch.search(query, page, searchPageSize).getItems());
+	}
+
+	// Ranked search on the in-memory index, best match first
+	@RequestMapping(value = "/search", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<ItemSearchResult> searchJson(@RequestParam("query") String query,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", required = false) Integer size) {
+		return ResponseEntity.ok(itemSearch.search(query, page, size != null ? size : searchPageSize));
 	}
 
 	@RequestMapping(value = "/{id}.html", method = RequestMethod.DELETE)
 	public ModelAndView delete(@PathVariable("id") long id) {
 		itemRepository.deleteById(id);
+		if (itemEventPublisher != null) {
+			itemEventPublisher.publishItemDeleted(id);
+		}
 		return new ModelAndView("success");
 	}
 
@@ -0,0 +1,52 @@
+package com.ewolff.microservice.catalog.web;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.ewolff.microservice.catalog.Item;
+import com.ewolff.microservice.catalog.ItemRepository;
+import com.ewolff.microservice.catalog.sales.ItemSales;
+import com.ewolff.microservice.catalog.sales.SalesAnalytics;
+import com.ewolff.microservice.catalog.sales.SalesReport;
+
+@Controller
+public class SalesController {
+
+	private final SalesAnalytics salesAnalytics;
+	private final ItemRepository itemRepository;
+
+	@Autowired
+	public SalesController(SalesAnalytics salesAnalytics, ItemRepository itemRepository) {
+		this.salesAnalytics = salesAnalytics;
+		this.itemRepository = itemRepository;
+	}
+
+	// Windows are counted in buckets of sales.bucket-seconds. Sliding windows
+	// end now, tumbling windows are the last completed one of their length.
+	@RequestMapping(value = "/sales", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<SalesReport> sales(@RequestParam(value = "buckets", defaultValue = "5") int buckets,
+			@RequestParam(value = "top", defaultValue = "10") int top,
+			@RequestParam(value = "tumbling", defaultValue = "false") boolean tumbling) {
+		SalesReport report = tumbling ? salesAnalytics.tumbling(buckets, top) : salesAnalytics.sliding(buckets, top);
+		if (!report.getTopItems().isEmpty()) {
+			Map<Long, Item> items = itemRepository
+					.findByIdIn(report.getTopItems().stream().map(ItemSales::getItemId).collect(Collectors.toList()))
+					.stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+			report.getTopItems().forEach(sales -> {
+				Item item = items.get(sales.getItemId());
+				sales.setName(item != null ? item.getName() : null);
+			});
+		}
+		return ResponseEntity.ok(report);
+	}
+
+}
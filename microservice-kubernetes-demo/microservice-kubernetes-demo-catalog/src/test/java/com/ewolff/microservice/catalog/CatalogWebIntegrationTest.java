@@ -4,6 +4,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -12,15 +13,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import com.ewolff.microservice.catalog.config.CacheConfig;
+import com.ewolff.microservice.catalog.sales.SalesAnalytics;
+import com.ewolff.microservice.catalog.search.ItemSearch;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringBootTest(classes = CatalogApp.class, webEnvironment = WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -29,6 +38,18 @@ public class CatalogWebIntegrationTest {
 	@Autowired
 	private ItemRepository itemRepository;
 
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private ItemSearch itemSearch;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
 	@LocalServerPort
 	private int serverPort;
 
@@ -63,6 +84,16 @@ public class CatalogWebIntegrationTest {
 		assertThat(body, equalTo(iPodNano));
 	}
 
+	@Test
+	public void AreBestSellersReturned() {
+		salesAnalytics.record(Collections.singletonMap(iPodNano.getId(), 3),
+				Collections.singletonMap(iPodNano.getId(), iPodNano.getPrice()));
+		String body = getForMediaType(String.class, MediaType.APPLICATION_JSON, catalogURL() + "/sales?top=1");
+
+		assertThat(body, containsString("\"name\":\"iPod nano\""));
+		assertThat(body, containsString("\"units\":3"));
+	}
+
 	@Test
 	public void FormReturned() {
 		String url = catalogURL() + "/searchForm.html";
@@ -81,6 +112,103 @@ public class CatalogWebIntegrationTest {
 		assertThat(body, containsString("<div"));
 	}
 
+	@Test
+	public void AreSearchResultsRanked() {
+		String url = catalogURL() + "/search?query=ipod tuoch";
+		String body = getForMediaType(String.class, MediaType.APPLICATION_JSON, url);
+
+		assertThat(body, containsString("\"total\":1"));
+		assertThat(body, containsString("\"name\":\"iPod touch\""));
+	}
+
+	@Test
+	public void IsSearchPageBeyondTheResultsEmpty() {
+		String url = catalogURL() + "/search?query=ipod&size=100&page=" + Integer.MAX_VALUE;
+		String body = getForMediaType(String.class, MediaType.APPLICATION_JSON, url);
+
+		assertThat(body, containsString("\"total\":3"));
+		assertThat(body, containsString("\"items\":[]"));
+	}
+
+	@Test
+	public void IsSavedItemSearchable() {
+		Item item = itemRepository.save(new Item("Mac mini", 699.0, 10));
+		try {
+			String body = getForMediaType(String.class, MediaType.APPLICATION_JSON, catalogURL() + "/search?query=mini");
+			assertThat(body, containsString("Mac mini"));
+		} finally {
+			itemRepository.deleteById(item.getId());
+		}
+		String body = getForMediaType(String.class, MediaType.APPLICATION_JSON, catalogURL() + "/search?query=mini");
+		assertThat(body, containsString("\"total\":0"));
+	}
+
+	@Test
+	public void DoesRebuildSeeItemsWrittenByOtherInstances() {
+		itemRepository.findAll();
+		assertNotNull(cacheManager.getCache(CacheConfig.ITEM_LISTS).get("all"));
+		// Written past this instance's caches, as by another instance
+		jdbcTemplate.update("insert into item (id, name, price, stock) values (?, ?, ?, ?)", 1000000L, "Mac Pro",
+				5999.0, 1);
+		try {
+			itemSearch.rebuild();
+			assertEquals(1, itemSearch.search("pro", 0, 10).getTotal());
+		} finally {
+			jdbcTemplate.update("delete from item where id = ?", 1000000L);
+			itemSearch.rebuild();
+		}
+	}
+
+	@Test
+	public void IsItemRestocked() {
+		Item item = itemRepository.save(new Item("iPod shuffle", 49.0, 0));
+		try {
+			String url = catalogURL() + "/" + item.getId() + "/restock?units=";
+			assertEquals(0, getForMediaType(Item.class, MediaType.APPLICATION_JSON,
+					catalogURL() + "/catalog/" + item.getId()).getStock());
+			assertEquals(5, restTemplate.postForObject(url + 5, null, Item.class).getStock());
+			assertEquals(5, getForMediaType(Item.class, MediaType.APPLICATION_JSON,
+					catalogURL() + "/catalog/" + item.getId()).getStock());
+			try {
+				restTemplate.postForObject(url + 0, null, Item.class);
+				fail("Restocking without units was accepted");
+			} catch (HttpClientErrorException e) {
+				assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+			}
+		} finally {
+			itemRepository.deleteById(item.getId());
+		}
+	}
+
+	@Test
+	public void AreItemReadsCachedAndEvictedOnSave() {
+		Item item = itemRepository.save(new Item("iPod classic", 249.0, 5));
+		try {
+			assertEquals(1, itemRepository.findByName("iPod classic").size());
+			assertNotNull(cacheManager.getCache(CacheConfig.ITEMS_BY_NAME).get("iPod classic"));
+
+			// Loaded afresh, not shared with the cached lookups
+			Item changed = itemRepository.findById(item.getId()).get();
+			changed.setName("iPod mini");
+			itemRepository.save(changed);
+			assertNull(cacheManager.getCache(CacheConfig.ITEMS_BY_NAME).get("iPod classic"));
+			assertEquals(0, itemRepository.findByName("iPod classic").size());
+			assertEquals(1, itemRepository.findByName("iPod mini").size());
+		} finally {
+			itemRepository.deleteById(item.getId());
+		}
+	}
+
+	@Test
+	public void AreCacheStatisticsExported() {
+		itemRepository.findByName(iPodNano.getName());
+		itemRepository.findByName(iPodNano.getName());
+		String body = restTemplate.getForObject(catalogURL() + "/actuator/prometheus", String.class);
+
+		assertThat(body, containsString("cache_gets_total{cache=\"catalogItemsByName\""));
+		assertThat(body, containsString("result=\"hit\""));
+	}
+
 	private <T> T getForMediaType(Class<T> value, MediaType mediaType, String url) {
 		HttpHeaders headers = new HttpHeaders();
 		headers.setAccept(Arrays.asList(mediaType));
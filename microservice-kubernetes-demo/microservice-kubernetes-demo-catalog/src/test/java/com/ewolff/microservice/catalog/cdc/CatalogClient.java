@@ -3,15 +3,18 @@ package com.ewolff.microservice.catalog.cdc;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -23,6 +26,9 @@ public class CatalogClient {
 	public static class ItemPagedResources extends PagedModel<Item> {
 	}
 
+	public static class ItemResources extends CollectionModel<Item> {
+	}
+
 	private final RestTemplate restTemplate;
 	private final String catalogServiceHost;
 	private final long catalogServicePort;
@@ -65,4 +71,10 @@ public class CatalogClient {
 		return restTemplate.getForObject(catalogURL() + itemId, Item.class);
 	}
 
+	public Collection<Item> getMany(List<Long> itemIds) {
+		ItemResources resources = restTemplate.getForObject(catalogURL() + "search/findByIdIn?ids={ids}",
+				ItemResources.class, StringUtils.collectionToCommaDelimitedString(itemIds));
+		return resources.getContent();
+	}
+
 }
@@ -2,7 +2,9 @@ package com.ewolff.microservice.catalog.cdc;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,4 +39,15 @@ public class CatalogConsumerDrivenContractTest {
 		assertEquals(id.longValue(), result.getItemId());
 	}
 
+	@Test
+	public void testGetMany() {
+		Iterator<Item> allItems = catalogClient.findAll().iterator();
+		Long first = allItems.next().getItemId();
+		Long second = allItems.next().getItemId();
+		Collection<Item> result = catalogClient.getMany(Arrays.asList(first, second, -1L));
+		assertEquals(2, result.size());
+		assertTrue(result.stream().anyMatch(i -> i.getItemId() == first));
+		assertTrue(result.stream().anyMatch(i -> i.getItemId() == second));
+	}
+
 }
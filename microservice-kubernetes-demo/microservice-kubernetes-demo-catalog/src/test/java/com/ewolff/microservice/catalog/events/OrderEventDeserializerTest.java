@@ -0,0 +1,36 @@
+package com.ewolff.microservice.catalog.events;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.ewolff.microservice.catalog.events.OrderEvent.EventType;
+import com.ewolff.microservice.catalog.events.OrderEvent.OrderLineEvent;
+
+public class OrderEventDeserializerTest {
+
+	private final OrderEventDeserializer deserializer = new OrderEventDeserializer();
+
+	@Test
+	public void IsBinaryEventRead() {
+		OrderEvent event = new OrderEvent(1L, 42L, Arrays.asList(new OrderLineEvent(2L, 5)), EventType.ORDER_CREATED);
+		OrderEvent read = deserializer.deserialize("order-events", OrderEventCodec.encode(event));
+		assertEquals(Long.valueOf(42L), read.getCustomerId());
+		assertEquals(5, read.getOrderLines().get(0).getCount());
+		assertEquals(event.getTimestamp(), read.getTimestamp());
+	}
+
+	@Test
+	public void IsJsonEventRead() {
+		String json = "{\"orderId\":1,\"customerId\":42,\"orderLines\":[{\"itemId\":2,\"count\":5}],"
+				+ "\"eventType\":\"ORDER_CREATED\",\"timestamp\":[2020,10,1,12,0,0,0]}";
+		OrderEvent read = deserializer.deserialize("order-events", json.getBytes(StandardCharsets.UTF_8));
+		assertEquals(EventType.ORDER_CREATED, read.getEventType());
+		assertEquals(Long.valueOf(2L), read.getOrderLines().get(0).getItemId());
+		assertEquals(2020, read.getTimestamp().getYear());
+	}
+
+}
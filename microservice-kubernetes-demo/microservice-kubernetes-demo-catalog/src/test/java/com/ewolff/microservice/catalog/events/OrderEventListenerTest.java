@@ -0,0 +1,162 @@
+package com.ewolff.microservice.catalog.events;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ewolff.microservice.catalog.CatalogApp;
+import com.ewolff.microservice.catalog.Item;
+import com.ewolff.microservice.catalog.ItemRepository;
+import com.ewolff.microservice.catalog.events.OrderEvent.EventType;
+import com.ewolff.microservice.catalog.events.OrderEvent.OrderLineEvent;
+import com.ewolff.microservice.catalog.sales.SalesAnalytics;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = CatalogApp.class, webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Transactional
+public class OrderEventListenerTest {
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private ProcessedEventRepository processedEventRepository;
+
+	@Autowired
+	private ConsumedOffsetRepository consumedOffsetRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private ProcessedEventStore processedEventStore;
+
+	private OrderEventListener orderEventListener;
+
+	private Item item;
+
+	@Before
+	public void setup() {
+		processedEventStore = new ProcessedEventStore(processedEventRepository, consumedOffsetRepository, 100);
+		orderEventListener = new OrderEventListener(itemRepository, processedEventStore, new SalesAnalytics(60, 60),
+				transactionManager);
+		item = itemRepository.save(new Item("iPad", 300.0, 10));
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void IsStockOfPollReservedAndReleased() {
+		orderEventListener.handleOrderEvents(records(
+				new OrderEvent(1L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 2)), EventType.ORDER_CREATED),
+				new OrderEvent(2L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 3)), EventType.ORDER_CREATED),
+				new OrderEvent(1L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 2)), EventType.ORDER_DELETED),
+				new OrderEvent(3L, 1L, null, EventType.ORDER_DELETED)));
+		assertEquals(7, itemRepository.findById(item.getId()).get().getStock());
+	}
+
+	@Test
+	public void IsOversoldStockOverdrawn() {
+		orderEventListener.handleOrderEvents(records(
+				new OrderEvent(5L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 12)), EventType.ORDER_CREATED)));
+		entityManager.clear();
+		assertEquals(-2, itemRepository.findById(item.getId()).get().getStock());
+		// Only a delivery or a release brings the stock back
+		assertEquals(0, itemRepository.adjustStock(item.getId(), -1));
+		assertEquals(1, itemRepository.adjustStock(item.getId(), 5));
+		entityManager.clear();
+		assertEquals(3, itemRepository.findById(item.getId()).get().getStock());
+	}
+
+	@Test
+	public void IsReplayedPollIgnored() {
+		OrderEvent created = new OrderEvent(4L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 4)),
+				EventType.ORDER_CREATED);
+		orderEventListener.handleOrderEvents(records(created, created));
+		orderEventListener.handleOrderEvents(records(created));
+		entityManager.clear();
+		assertEquals(6, itemRepository.findById(item.getId()).get().getStock());
+		assertEquals(Long.valueOf(2L),
+				processedEventStore.nextOffset(new TopicPartition("order-events", 0)).get());
+	}
+
+	@Test
+	public void IsOnlyUnreadableRecordFailed() {
+		List<ConsumerRecord<String, OrderEvent>> records = records(
+				new OrderEvent(7L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 1)), EventType.ORDER_CREATED),
+				new OrderEvent(8L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 2)), null),
+				new OrderEvent(9L, 1L, null, EventType.ORDER_CREATED),
+				new OrderEvent(10L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 4)), EventType.ORDER_CREATED));
+		// As left behind by a value that failed to deserialize
+		records.set(2, new ConsumerRecord<>("order-events", 0, 2, "9", null));
+		try {
+			orderEventListener.handleOrderEvents(records);
+			fail("Unreadable record was not reported");
+		} catch (BatchListenerFailedException e) {
+			assertEquals(2, e.getIndex());
+		}
+		entityManager.clear();
+		// The event without a type is skipped, the one after the failed record not handled yet
+		assertEquals(9, itemRepository.findById(item.getId()).get().getStock());
+	}
+
+	@Test
+	public void IsCommittedOffsetUsedWhenAhead() {
+		TopicPartition partition = new TopicPartition("order-events", 0);
+		orderEventListener.handleOrderEvents(records(
+				new OrderEvent(6L, 1L, Arrays.asList(new OrderLineEvent(item.getId(), 1)), EventType.ORDER_CREATED)));
+
+		ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+		// Another instance has consumed the partition further
+		orderEventListener.onPartitionsAssigned(Collections.singletonMap(partition, 5L), callback);
+		verifyNoInteractions(callback);
+		// The offsets committed to Kafka lag behind the stored one
+		orderEventListener.onPartitionsAssigned(Collections.singletonMap(partition, 0L), callback);
+		verify(callback).seek("order-events", 0, 1L);
+	}
+
+	@Test
+	public void IsStockNotOverwrittenBySavedItem() {
+		Item edited = new Item("iPad Pro", 400.0);
+		edited.setId(item.getId());
+		itemRepository.save(edited);
+		entityManager.flush();
+		entityManager.clear();
+		Item saved = itemRepository.findById(item.getId()).get();
+		assertEquals("iPad Pro", saved.getName());
+		assertEquals(10, saved.getStock());
+	}
+
+	private List<ConsumerRecord<String, OrderEvent>> records(OrderEvent... events) {
+		return IntStream.range(0, events.length)
+				.mapToObj(offset -> new ConsumerRecord<>("order-events", 0, offset,
+						String.valueOf(events[offset].getOrderId()), events[offset]))
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.ewolff.microservice.catalog.sales;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SalesAnalyticsTest {
+
+	private MovingClock clock;
+
+	private SalesAnalytics salesAnalytics;
+
+	@Before
+	public void setup() {
+		clock = new MovingClock();
+		salesAnalytics = new SalesAnalytics(clock, 60, 10);
+	}
+
+	@Test
+	public void AreBestSellersRankedByUnits() {
+		salesAnalytics.record(units(1L, 2, 2L, 5, 3L, 1), prices(1L, 10.0, 2L, 1.0));
+		salesAnalytics.record(units(1L, 4), prices(1L, 10.0));
+
+		SalesReport report = salesAnalytics.sliding(5, 2);
+		assertEquals(12, report.getUnits());
+		assertEquals(65.0, report.getRevenue(), 0.001);
+		assertEquals(2, report.getTopItems().size());
+		assertEquals(1L, report.getTopItems().get(0).getItemId());
+		assertEquals(6, report.getTopItems().get(0).getUnits());
+		assertEquals(60.0, report.getTopItems().get(0).getRevenue(), 0.001);
+		assertEquals(2L, report.getTopItems().get(1).getItemId());
+	}
+
+	@Test
+	public void DoOldSalesLeaveTheSlidingWindow() {
+		salesAnalytics.record(units(1L, 2), prices(1L, 10.0));
+		clock.advanceMinutes(3);
+		salesAnalytics.record(units(2L, 1), prices(2L, 10.0));
+
+		assertEquals(3, salesAnalytics.sliding(5, 10).getUnits());
+		assertEquals(1, salesAnalytics.sliding(2, 10).getUnits());
+		clock.advanceMinutes(20);
+		assertEquals(0, salesAnalytics.sliding(10, 10).getUnits());
+	}
+
+	@Test
+	public void IsTumblingWindowTheLastCompletedOne() {
+		salesAnalytics.record(units(1L, 2), prices(1L, 10.0));
+		assertEquals(0, salesAnalytics.tumbling(5, 10).getUnits());
+		clock.advanceMinutes(5);
+		salesAnalytics.record(units(1L, 1), prices(1L, 10.0));
+
+		SalesReport report = salesAnalytics.tumbling(5, 10);
+		assertEquals(2, report.getUnits());
+		assertEquals(Instant.ofEpochSecond(0), report.getFrom());
+		assertEquals(Instant.ofEpochSecond(300), report.getTo());
+	}
+
+	@Test
+	public void IsLongestTumblingWindowComplete() {
+		clock.advanceMinutes(5);
+		salesAnalytics.record(units(1L, 2), prices(1L, 10.0));
+		// The last bucket before the next window completes: the window of
+		// buckets 5 to 9 is still entirely in the ring of 10
+		clock.advanceMinutes(9);
+		salesAnalytics.record(units(1L, 1), prices(1L, 10.0));
+
+		SalesReport report = salesAnalytics.tumbling(10, 10);
+		assertEquals(Instant.ofEpochSecond(300), report.getFrom());
+		assertEquals(Instant.ofEpochSecond(600), report.getTo());
+		assertEquals(2, report.getUnits());
+	}
+
+	private Map<Long, Integer> units(Object... itemsAndUnits) {
+		Map<Long, Integer> units = new HashMap<>();
+		for (int i = 0; i < itemsAndUnits.length; i += 2) {
+			units.put((Long) itemsAndUnits[i], (Integer) itemsAndUnits[i + 1]);
+		}
+		return units;
+	}
+
+	private Map<Long, Double> prices(Object... itemsAndPrices) {
+		Map<Long, Double> prices = new HashMap<>();
+		for (int i = 0; i < itemsAndPrices.length; i += 2) {
+			prices.put((Long) itemsAndPrices[i], (Double) itemsAndPrices[i + 1]);
+		}
+		return prices;
+	}
+
+	private static class MovingClock extends Clock {
+
+		private long millis = 0;
+
+		void advanceMinutes(int minutes) {
+			millis += minutes * 60000L;
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+}
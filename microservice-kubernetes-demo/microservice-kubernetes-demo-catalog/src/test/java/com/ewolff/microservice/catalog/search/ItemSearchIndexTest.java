@@ -0,0 +1,99 @@
+package com.ewolff.microservice.catalog.search;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ItemSearchIndexTest {
+
+	private ItemSearchIndex index;
+
+	@Before
+	public void setup() {
+		index = new ItemSearchIndex();
+		index.put(1L, "iPod");
+		index.put(2L, "iPod touch");
+		index.put(3L, "iPod nano");
+		index.put(4L, "Apple TV");
+	}
+
+	@Test
+	public void AreExactMatchesRankedFirst() {
+		ItemSearchIndex.Hits hits = index.search("ipod", 0, 10);
+		assertEquals(3, hits.getTotal());
+		// Same score, so the shortest name comes first
+		assertEquals(Long.valueOf(1L), hits.getItemIds().get(0));
+	}
+
+	@Test
+	public void AreAllTermsRequired() {
+		assertEquals(Collections.singletonList(2L), index.search("iPod Touch", 0, 10).getItemIds());
+		assertEquals(0, index.search("iPod TV", 0, 10).getTotal());
+	}
+
+	@Test
+	public void ArePrefixInfixAndTyposMatched() {
+		assertEquals(Collections.singletonList(3L), index.search("nan", 0, 10).getItemIds());
+		assertEquals(Arrays.asList(1L, 3L, 2L), index.search("pod", 0, 10).getItemIds());
+		assertEquals(Collections.singletonList(2L), index.search("tuoch", 0, 10).getItemIds());
+		assertEquals(Collections.singletonList(4L), index.search("aple", 0, 10).getItemIds());
+	}
+
+	@Test
+	public void AreTyposInShortTermsMatched() {
+		index.put(5L, "Cat toy");
+		assertEquals(Collections.singletonList(5L), index.search("cut", 0, 10).getItemIds());
+		assertEquals(Collections.singletonList(5L), index.search("act", 0, 10).getItemIds());
+		assertEquals(Collections.singletonList(4L), index.search("tvs", 0, 10).getItemIds());
+		index.remove(5L);
+		assertEquals(0, index.search("cut", 0, 10).getTotal());
+	}
+
+	@Test
+	public void AreShortTermsReplacedByRebuild() {
+		index.put(5L, "Cat toy");
+		index.replaceAll(Collections.singletonMap(5L, "Dog toy"), index.changeCount());
+		assertEquals(0, index.search("cut", 0, 10).getTotal());
+		assertEquals(Collections.singletonList(5L), index.search("dig", 0, 10).getItemIds());
+	}
+
+	@Test
+	public void AreResultsPaged() {
+		ItemSearchIndex.Hits hits = index.search("ipod", 2, 2);
+		assertEquals(3, hits.getTotal());
+		assertEquals(Collections.singletonList(2L), hits.getItemIds());
+		hits = index.search("ipod", Integer.MAX_VALUE, 2);
+		assertEquals(3, hits.getTotal());
+		assertTrue(hits.getItemIds().isEmpty());
+	}
+
+	@Test
+	public void AreChangesIndexed() {
+		index.put(2L, "iPhone");
+		index.remove(3L);
+		assertEquals(Collections.singletonList(1L), index.search("ipod", 0, 10).getItemIds());
+		assertEquals(Collections.singletonList(2L), index.search("iphone", 0, 10).getItemIds());
+		assertEquals(0, index.search("touch", 0, 10).getTotal());
+	}
+
+	@Test
+	public void AreChangesDuringRebuildKept() {
+		long since = index.changeCount();
+		Map<Long, String> names = new HashMap<>();
+		names.put(1L, "iPod");
+		names.put(3L, "iPod nano");
+		index.put(5L, "Mac mini");
+		index.remove(3L);
+		index.replaceAll(names, since);
+		assertEquals(2, index.size());
+		assertEquals(Collections.singletonList(5L), index.search("mac", 0, 10).getItemIds());
+		assertEquals(0, index.search("nano", 0, 10).getTotal());
+	}
+
+}
@@ -9,12 +9,18 @@ import javax.validation.constraints.Email;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.ewolff.microservice.customer.config.PooledSequenceGenerator;
 
 @Entity
 public class Customer {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "customerIdGenerator")
+	@GenericGenerator(name = "customerIdGenerator", strategy = PooledSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = "sequence_name", value = "CUSTOMER_SEQ"))
 	private Long id;
 
 	@Column(nullable = false)
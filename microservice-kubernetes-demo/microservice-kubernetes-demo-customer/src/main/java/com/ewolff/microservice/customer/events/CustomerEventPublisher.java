@@ -0,0 +1,70 @@
+package com.ewolff.microservice.customer.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import com.ewolff.microservice.customer.events.CustomerEvent.EventType;
+
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerEventPublisher.class);
+
+    private final KafkaTemplate<String, CustomerEvent> kafkaTemplate;
+
+    @Value("${kafka.topic.customer-events:customer-events}")
+    private String customerEventsTopic;
+
+    @Autowired
+    public CustomerEventPublisher(KafkaTemplate<String, CustomerEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void publishCustomerCreated(long customerId) {
+        sendEvent(new CustomerEvent(customerId, EventType.CUSTOMER_CREATED));
+    }
+
+    public void publishCustomerUpdated(long customerId) {
+        sendEvent(new CustomerEvent(customerId, EventType.CUSTOMER_UPDATED));
+    }
+
+    public void publishCustomerDeleted(long customerId) {
+        sendEvent(new CustomerEvent(customerId, EventType.CUSTOMER_DELETED));
+    }
+
+    private void sendEvent(CustomerEvent event) {
+        try {
+            // Keyed by customer id, so all changes of a customer stay in order on one partition
+            ListenableFuture<SendResult<String, CustomerEvent>> future =
+                kafkaTemplate.send(customerEventsTopic, String.valueOf(event.getCustomerId()), event);
+
+            future.addCallback(new ListenableFutureCallback<SendResult<String, CustomerEvent>>() {
+                @Override
+                public void onSuccess(SendResult<String, CustomerEvent> result) {
+                    log.info("Customer event sent successfully: customerId={}, type={}, partition={}, offset={}",
+                            event.getCustomerId(), event.getEventType(),
+                            result.getRecordMetadata().partition(),
+                            result.getRecordMetadata().offset());
+                }
+
+                @Override
+                public void onFailure(Throwable ex) {
+                    log.error("Failed to send customer event: customerId={}, type={}, error={}",
+                            event.getCustomerId(), event.getEventType(), ex.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Exception while sending customer event: customerId={}, error={}",
+                    event.getCustomerId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ewolff.microservice.customer.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.customer.Customer;
+
+/**
+ * Publishes customer events for writes through the Spring Data REST endpoints.
+ * Writes through {@code CustomerController} publish their events there.
+ */
+@Component
+@RepositoryEventHandler(Customer.class)
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerRepositoryEventHandler {
+
+    private final CustomerEventPublisher customerEventPublisher;
+
+    @Autowired
+    public CustomerRepositoryEventHandler(CustomerEventPublisher customerEventPublisher) {
+        this.customerEventPublisher = customerEventPublisher;
+    }
+
+    @HandleAfterCreate
+    public void afterCreate(Customer customer) {
+        customerEventPublisher.publishCustomerCreated(customer.getId());
+    }
+
+    @HandleAfterSave
+    public void afterSave(Customer customer) {
+        customerEventPublisher.publishCustomerUpdated(customer.getId());
+    }
+
+    @HandleAfterDelete
+    public void afterDelete(Customer customer) {
+        customerEventPublisher.publishCustomerDeleted(customer.getId());
+    }
+}
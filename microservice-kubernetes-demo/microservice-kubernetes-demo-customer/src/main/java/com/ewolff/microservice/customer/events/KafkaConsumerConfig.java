@@ -13,7 +13,13 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.listener.BatchErrorHandler;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerAwareBatchErrorHandler;
+import org.springframework.kafka.listener.RecoveringBatchErrorHandler;
+import org.springframework.kafka.listener.SeekToCurrentBatchErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 @EnableKafka
 @Configuration
@@ -26,17 +32,40 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id:customer-service}")
     private String groupId;
 
+    // One consumer thread per partition of the order events topic at most
+    @Value("${kafka.listener.concurrency:3}")
+    private int concurrency;
+
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    // The broker waits until this much data is available or the wait is over,
+    // so a poll during low traffic still returns a batch instead of single events
+    @Value("${kafka.consumer.fetch-min-bytes:1024}")
+    private int fetchMinBytes;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:200}")
+    private int fetchMaxWaitMs;
+
+    // Pause before a poll that failed as a whole is handled again
+    @Value("${kafka.listener.retry-interval:1000}")
+    private long retryInterval;
+
     @Bean
     public ConsumerFactory<String, OrderEvent> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        // An event that cannot be read reaches the listener without a value
+        // instead of failing every poll of its partition
         return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
-                new JsonDeserializer<>(OrderEvent.class));
+                new ErrorHandlingDeserializer<>(new OrderEventDeserializer()));
     }
 
     @Bean
@@ -44,6 +73,39 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Listeners receive all records of a poll as one list
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.setBatchErrorHandler(batchErrorHandler());
         return factory;
     }
+
+    /**
+     * A record the listener reports as failed, with a
+     * {@link BatchListenerFailedException}, is logged and skipped at once, as
+     * it would fail again; the records before it are committed and those after
+     * it are polled again. Any other failure, as of the database, is not tied
+     * to a record, so the whole poll is handled again until it succeeds.
+     */
+    private BatchErrorHandler batchErrorHandler() {
+        RecoveringBatchErrorHandler failedRecordHandler = new RecoveringBatchErrorHandler(new FixedBackOff(0L, 0L));
+        SeekToCurrentBatchErrorHandler retryingHandler = new SeekToCurrentBatchErrorHandler();
+        retryingHandler.setBackOff(new FixedBackOff(retryInterval, FixedBackOff.UNLIMITED_ATTEMPTS));
+        return (ContainerAwareBatchErrorHandler) (exception, records, consumer, container) -> {
+            if (isFailedRecord(exception)) {
+                failedRecordHandler.handle(exception, records, consumer, container);
+            } else {
+                retryingHandler.handle(exception, records, consumer, container);
+            }
+        };
+    }
+
+    private static boolean isFailedRecord(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchListenerFailedException) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -2,6 +2,7 @@ package com.ewolff.microservice.customer.events;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 public class OrderEvent {
     
@@ -16,6 +17,12 @@ public class OrderEvent {
     private List<OrderLineEvent> orderLines;
     private EventType eventType;
     private LocalDateTime timestamp;
+    // Only set for ORDER_CREATED
+    private Double totalPrice;
+    // Unique per event, set by the order service when it writes the event
+    private UUID eventId;
+    // Unique per order across all order service instances, unlike the order id
+    private UUID orderUuid;
     
     public OrderEvent() {
     }
@@ -44,6 +51,15 @@ public class OrderEvent {
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     
+    public Double getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(Double totalPrice) { this.totalPrice = totalPrice; }
+    
+    public UUID getEventId() { return eventId; }
+    public void setEventId(UUID eventId) { this.eventId = eventId; }
+    
+    public UUID getOrderUuid() { return orderUuid; }
+    public void setOrderUuid(UUID orderUuid) { this.orderUuid = orderUuid; }
+    
     public static class OrderLineEvent {
         private Long itemId;
         private int count;
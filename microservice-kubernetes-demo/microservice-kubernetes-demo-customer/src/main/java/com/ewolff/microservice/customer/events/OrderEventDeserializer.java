@@ -0,0 +1,30 @@
+package com.ewolff.microservice.customer.events;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads order events in the binary format of {@link OrderEventCodec}. Events
+ * written as JSON by earlier versions of the order service are still read;
+ * their type headers are ignored, as they name the order service's class.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    private final JsonDeserializer<OrderEvent> jsonDeserializer = new JsonDeserializer<>(OrderEvent.class, false);
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (OrderEventCodec.isBinary(data)) {
+            return OrderEventCodec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -1,42 +1,95 @@
 package com.ewolff.microservice.customer.events;
 
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ewolff.microservice.customer.stats.CustomerOrderStatsUpdater;
 
+/**
+ * Updates the customer statistics from the order events. Events that have
+ * been processed before are skipped, see {@link ProcessedEventStore}. A
+ * record that cannot be read fails on its own, see {@link KafkaConsumerConfig}.
+ */
 @Component
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
-public class OrderEventListener {
+public class OrderEventListener implements ConsumerSeekAware {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventListener.class);
 
+    private final CustomerOrderStatsUpdater statsUpdater;
+
+    private final ProcessedEventStore processedEventStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderEventListener(CustomerOrderStatsUpdater statsUpdater, ProcessedEventStore processedEventStore,
+            PlatformTransactionManager transactionManager) {
+        this.statsUpdater = statsUpdater;
+        this.processedEventStore = processedEventStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Resume after the last events whose effects have been committed here, as
+    // the offsets committed to Kafka afterwards may lag behind. The assigned
+    // positions are the committed offsets: if they are ahead, another instance
+    // with its own database has consumed the partition since, so they win.
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.forEach((partition, position) -> processedEventStore.nextOffset(partition)
+                .filter(offset -> position == null || offset > position)
+                .ifPresent(offset -> callback.seek(partition.topic(), partition.partition(), offset)));
+    }
+
+    // All events of one poll are applied in one transaction, so the
+    // statistics cost one commit per poll instead of one per event. The records
+    // before one that cannot be read are committed, then the failure names
+    // its index, so the error handler skips just that record.
     @KafkaListener(topics = "${kafka.topic.order-events:order-events}", 
                    groupId = "${spring.kafka.consumer.group-id:customer-service}",
                    containerFactory = "kafkaListenerContainerFactory")
-    public void handleOrderEvent(OrderEvent event) {
-        log.info("Received order event: orderId={}, customerId={}, type={}",
-                event.getOrderId(), event.getCustomerId(), event.getEventType());
-        
-        switch (event.getEventType()) {
-            case ORDER_CREATED:
-                handleOrderCreated(event);
-                break;
-            case ORDER_DELETED:
-                handleOrderDeleted(event);
-                break;
-            default:
-                log.warn("Unknown event type: {}", event.getEventType());
+    public void handleOrderEvents(List<ConsumerRecord<String, OrderEvent>> records) {
+        log.info("Received {} order events", records.size());
+        List<ConsumerRecord<String, OrderEvent>> readable = records.subList(0, firstUnreadable(records));
+        if (!readable.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> handleReadable(readable));
+        }
+        if (readable.size() < records.size()) {
+            ConsumerRecord<String, OrderEvent> record = records.get(readable.size());
+            throw new BatchListenerFailedException("Order event at offset " + record.offset() + " of partition "
+                    + record.partition() + " could not be read", readable.size());
         }
     }
-    
-    private void handleOrderCreated(OrderEvent event) {
-        // Can be used for: updating customer order statistics, sending notifications, etc.
-        log.info("Processing ORDER_CREATED for customer: {}", event.getCustomerId());
+
+    // Records whose value failed to deserialize arrive without one
+    private static int firstUnreadable(List<? extends ConsumerRecord<?, ?>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).value() == null) {
+                return i;
+            }
+        }
+        return records.size();
     }
-    
-    private void handleOrderDeleted(OrderEvent event) {
-        log.info("Processing ORDER_DELETED for order: {}", event.getOrderId());
+
+    private void handleReadable(List<ConsumerRecord<String, OrderEvent>> records) {
+        List<OrderEvent> events = processedEventStore.claim(records);
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("Received order event: orderId={}, customerId={}, type={}",
+                    event.getOrderId(), event.getCustomerId(), event.getEventType()));
+        }
+        statsUpdater.apply(events);
     }
 }
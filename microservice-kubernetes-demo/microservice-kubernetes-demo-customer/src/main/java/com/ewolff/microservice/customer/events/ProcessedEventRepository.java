@@ -0,0 +1,21 @@
+package com.ewolff.microservice.customer.events;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+@RepositoryRestResource(exported = false)
+public interface ProcessedEventRepository extends CrudRepository<ProcessedEvent, UUID> {
+
+	@Modifying
+	@Transactional
+	@Query("delete from ProcessedEvent e where e.processedAt < :processedBefore")
+	int deleteProcessedBefore(@Param("processedBefore") LocalDateTime processedBefore);
+
+}
@@ -0,0 +1,152 @@
+package com.ewolff.microservice.customer.events;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers which order events have been processed, so replays after a
+ * restart or rebalance do no work twice. An event is identified by its event
+ * id, see {@link ProcessedEvent#idOf(OrderEvent)}. The ids of recent events
+ * are kept in memory; all others are looked up with one query per poll.
+ *
+ * The processed events and the offsets after them are stored in the
+ * transaction of the listener, so they are committed if and only if the
+ * effects of the events are. The listener resumes from these offsets unless
+ * the offsets committed to Kafka are further ahead, as after another instance
+ * consumed the partition.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class ProcessedEventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessedEventStore.class);
+
+    private final ProcessedEventRepository processedEventRepository;
+
+    private final ConsumedOffsetRepository consumedOffsetRepository;
+
+    // Ids of recently processed events, least recently seen first
+    private final Map<UUID, Boolean> window;
+
+    // Events older than this lie before the stored offsets and are not read again
+    @Value("${kafka.dedupe.retention:604800000}")
+    private long retention;
+
+    @Autowired
+    public ProcessedEventStore(ProcessedEventRepository processedEventRepository,
+            ConsumedOffsetRepository consumedOffsetRepository,
+            @Value("${kafka.dedupe.window-size:10000}") int windowSize) {
+        this.processedEventRepository = processedEventRepository;
+        this.consumedOffsetRepository = consumedOffsetRepository;
+        this.window = Collections.synchronizedMap(new LinkedHashMap<UUID, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > windowSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the events of the records that have not been processed yet and
+     * stores them as processed, together with the offsets after the records.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<OrderEvent> claim(List<ConsumerRecord<String, OrderEvent>> records) {
+        Set<UUID> unknownIds = new HashSet<>();
+        for (ConsumerRecord<String, OrderEvent> record : records) {
+            UUID key = ProcessedEvent.idOf(record.value());
+            if (key != null && !window.containsKey(key)) {
+                unknownIds.add(key);
+            }
+        }
+        Set<UUID> processed = new HashSet<>();
+        if (!unknownIds.isEmpty()) {
+            processedEventRepository.findAllById(unknownIds).forEach(event -> processed.add(event.getId()));
+            processed.forEach(key -> window.put(key, Boolean.TRUE));
+        }
+
+        List<OrderEvent> events = new ArrayList<>();
+        Set<UUID> claimed = new HashSet<>();
+        List<ProcessedEvent> claimedEvents = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ConsumerRecord<String, OrderEvent> record : records) {
+            UUID key = ProcessedEvent.idOf(record.value());
+            if (key == null) {
+                // Cannot be deduplicated, the listener decides what to do with it
+                events.add(record.value());
+            } else if (!window.containsKey(key) && !processed.contains(key) && claimed.add(key)) {
+                events.add(record.value());
+                claimedEvents.add(new ProcessedEvent(key, now));
+            }
+        }
+        if (events.size() < records.size()) {
+            log.info("Skipped {} order events processed before", records.size() - events.size());
+        }
+        processedEventRepository.saveAll(claimedEvents);
+        storeOffsets(records);
+
+        // Only committed events may be skipped later
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                claimed.forEach(key -> window.put(key, Boolean.TRUE));
+            }
+        });
+        return events;
+    }
+
+    public Optional<Long> nextOffset(TopicPartition partition) {
+        return consumedOffsetRepository.findById(new ConsumedOffset.Key(partition.topic(), partition.partition()))
+                .map(ConsumedOffset::getNextOffset);
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.dedupe.purge-interval:3600000}")
+    public void purge() {
+        int deleted = processedEventRepository
+                .deleteProcessedBefore(LocalDateTime.now().minus(Duration.ofMillis(retention)));
+        if (deleted > 0) {
+            log.info("Purged {} processed order events", deleted);
+        }
+    }
+
+    private void storeOffsets(List<ConsumerRecord<String, OrderEvent>> records) {
+        Map<ConsumedOffset.Key, Long> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<String, OrderEvent> record : records) {
+            nextOffsets.merge(new ConsumedOffset.Key(record.topic(), record.partition()), record.offset() + 1,
+                    Math::max);
+        }
+        nextOffsets.forEach((key, nextOffset) -> {
+            ConsumedOffset offset = consumedOffsetRepository.findById(key)
+                    .orElseGet(() -> new ConsumedOffset(key.getTopic(), key.getPartitionId()));
+            // Replayed records lie before the stored offset, which must not go back
+            offset.setNextOffset(Math.max(offset.getNextOffset(), nextOffset));
+            consumedOffsetRepository.save(offset);
+        });
+    }
+}
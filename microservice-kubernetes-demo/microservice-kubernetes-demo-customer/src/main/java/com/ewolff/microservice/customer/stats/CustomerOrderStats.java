@@ -0,0 +1,94 @@
+package com.ewolff.microservice.customer.stats;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Order statistics of a customer, maintained from the order events. Deleted
+ * orders are taken out again.
+ */
+@Entity
+public class CustomerOrderStats {
+
+	@Id
+	private Long customerId;
+
+	@Column(nullable = false)
+	private long orderCount;
+
+	@Column(nullable = false)
+	private long totalItems;
+
+	@Column(nullable = false)
+	private double lifetimeValue;
+
+	private LocalDateTime lastOrderAt;
+
+	public CustomerOrderStats() {
+		super();
+	}
+
+	public CustomerOrderStats(Long customerId) {
+		super();
+		this.customerId = customerId;
+	}
+
+	public Long getCustomerId() {
+		return customerId;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public void setOrderCount(long orderCount) {
+		this.orderCount = orderCount;
+	}
+
+	public long getTotalItems() {
+		return totalItems;
+	}
+
+	public void setTotalItems(long totalItems) {
+		this.totalItems = totalItems;
+	}
+
+	public double getLifetimeValue() {
+		return lifetimeValue;
+	}
+
+	public void setLifetimeValue(double lifetimeValue) {
+		this.lifetimeValue = lifetimeValue;
+	}
+
+	public LocalDateTime getLastOrderAt() {
+		return lastOrderAt;
+	}
+
+	public void setLastOrderAt(LocalDateTime lastOrderAt) {
+		this.lastOrderAt = lastOrderAt;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+
+	@Override
+	public int hashCode() {
+		return HashCodeBuilder.reflectionHashCode(this);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return EqualsBuilder.reflectionEquals(this, obj);
+	}
+
+}
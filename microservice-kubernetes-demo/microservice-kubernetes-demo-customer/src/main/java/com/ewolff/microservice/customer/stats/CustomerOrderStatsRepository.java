@@ -0,0 +1,26 @@
+package com.ewolff.microservice.customer.stats;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+@RepositoryRestResource(exported = false)
+public interface CustomerOrderStatsRepository extends CrudRepository<CustomerOrderStats, Long> {
+
+	// Increments in a single UPDATE, so consumers working on orders of the
+	// same customer cannot overwrite each other's changes
+	@Modifying
+	@Query("update CustomerOrderStats s set s.orderCount = s.orderCount + :orders, "
+			+ "s.totalItems = s.totalItems + :items, s.lifetimeValue = s.lifetimeValue + :value "
+			+ "where s.customerId = :customerId")
+	int add(@Param("customerId") long customerId, @Param("orders") long orders, @Param("items") long items,
+			@Param("value") double value);
+
+	@Modifying
+	@Query("update CustomerOrderStats s set s.lastOrderAt = (select max(c.orderedAt) from OrderContribution c "
+			+ "where c.customerId = s.customerId and c.cancelled = false) where s.customerId = :customerId")
+	int updateLastOrderAt(@Param("customerId") long customerId);
+
+}
@@ -0,0 +1,134 @@
+package com.ewolff.microservice.customer.stats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ewolff.microservice.customer.events.OrderEvent;
+import com.ewolff.microservice.customer.events.OrderEvent.OrderLineEvent;
+
+/**
+ * Applies order events to the customer statistics. The changes of a batch are
+ * summed up per customer and written with one increment per customer.
+ */
+@Service
+public class CustomerOrderStatsUpdater {
+
+	private static final Logger log = LoggerFactory.getLogger(CustomerOrderStatsUpdater.class);
+
+	private final CustomerOrderStatsRepository statsRepository;
+
+	private final OrderContributionRepository contributionRepository;
+
+	@Autowired
+	public CustomerOrderStatsUpdater(CustomerOrderStatsRepository statsRepository,
+			OrderContributionRepository contributionRepository) {
+		this.statsRepository = statsRepository;
+		this.contributionRepository = contributionRepository;
+	}
+
+	@Transactional
+	public void apply(List<OrderEvent> events) {
+		Map<UUID, OrderContribution> contributions = new HashMap<>();
+		contributionRepository.findAllById(events.stream().map(OrderContribution::keyOf)
+				.filter(key -> key != null).collect(Collectors.toSet()))
+				.forEach(contribution -> contributions.put(contribution.getOrderUuid(), contribution));
+
+		List<OrderContribution> newContributions = new ArrayList<>();
+		// Sorted by customer id: all consumers lock the rows in the same order
+		Map<Long, Change> changes = new TreeMap<>();
+		for (OrderEvent event : events) {
+			if (event.getOrderId() == null || event.getEventType() == null) {
+				log.warn("Order event without order id or type ignored: {}", event);
+				continue;
+			}
+			switch (event.getEventType()) {
+			case ORDER_CREATED:
+				orderCreated(event, contributions, newContributions, changes);
+				break;
+			case ORDER_DELETED:
+				orderDeleted(event, contributions, newContributions, changes);
+				break;
+			default:
+				// Updates do not change the statistics
+				break;
+			}
+		}
+		// Cancelled contributions loaded above are flushed before the updates below
+		contributionRepository.saveAll(newContributions);
+		changes.forEach(this::applyChange);
+	}
+
+	private void orderCreated(OrderEvent event, Map<UUID, OrderContribution> contributions,
+			List<OrderContribution> newContributions, Map<Long, Change> changes) {
+		UUID key = OrderContribution.keyOf(event);
+		if (contributions.containsKey(key)) {
+			log.debug("Order {} already counted or deleted", event.getOrderId());
+			return;
+		}
+		if (event.getCustomerId() == null) {
+			log.warn("Order {} without customer ignored", event.getOrderId());
+			return;
+		}
+		int items = event.getOrderLines() == null ? 0
+				: event.getOrderLines().stream().mapToInt(OrderLineEvent::getCount).sum();
+		double value = event.getTotalPrice() != null ? event.getTotalPrice() : 0.0;
+		OrderContribution contribution = new OrderContribution(key, event.getOrderId(), event.getCustomerId(),
+				items, value, event.getTimestamp());
+		contributions.put(key, contribution);
+		newContributions.add(contribution);
+		changes.computeIfAbsent(event.getCustomerId(), id -> new Change()).add(1, items, value);
+	}
+
+	private void orderDeleted(OrderEvent event, Map<UUID, OrderContribution> contributions,
+			List<OrderContribution> newContributions, Map<Long, Change> changes) {
+		UUID key = OrderContribution.keyOf(event);
+		OrderContribution contribution = contributions.get(key);
+		if (contribution == null) {
+			contribution = OrderContribution.cancelled(key, event.getOrderId(), event.getCustomerId());
+			contributions.put(key, contribution);
+			newContributions.add(contribution);
+		} else if (!contribution.isCancelled()) {
+			contribution.cancel();
+			changes.computeIfAbsent(contribution.getCustomerId(), id -> new Change()).add(-1,
+					-contribution.getItemCount(), -contribution.getOrderValue());
+		}
+	}
+
+	private void applyChange(Long customerId, Change change) {
+		if (statsRepository.add(customerId, change.orders, change.items, change.value) == 0) {
+			CustomerOrderStats stats = new CustomerOrderStats(customerId);
+			stats.setOrderCount(change.orders);
+			stats.setTotalItems(change.items);
+			stats.setLifetimeValue(change.value);
+			statsRepository.save(stats);
+		}
+		statsRepository.updateLastOrderAt(customerId);
+	}
+
+	private static class Change {
+
+		private long orders;
+
+		private long items;
+
+		private double value;
+
+		void add(long orders, long items, double value) {
+			this.orders += orders;
+			this.items += items;
+			this.value += value;
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.ewolff.microservice.customer.stats;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import com.ewolff.microservice.customer.events.OrderEvent;
+
+/**
+ * What one order added to the statistics of its customer. The row makes
+ * redelivered events harmless: an order is counted at most once and taken
+ * out at most once. A deletion that arrives before the creation leaves a
+ * cancelled row, so the late creation is not counted either.
+ * <p>
+ * The row is keyed by the order's uuid: order ids come from the sequence of
+ * one order service instance, so different orders may share one.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "customerId"))
+public class OrderContribution implements Persistable<UUID> {
+
+	@Id
+	private UUID orderUuid;
+
+	private Long orderId;
+
+	private Long customerId;
+
+	@Column(nullable = false)
+	private int itemCount;
+
+	@Column(nullable = false)
+	private double orderValue;
+
+	private LocalDateTime orderedAt;
+
+	@Column(nullable = false)
+	private boolean cancelled;
+
+	// The id is the order's uuid and always set, so new rows are marked here
+	// and inserted without a SELECT before
+	@Transient
+	private boolean newContribution = true;
+
+	public OrderContribution() {
+		super();
+	}
+
+	public OrderContribution(UUID orderUuid, Long orderId, Long customerId, int itemCount, double orderValue,
+			LocalDateTime orderedAt) {
+		super();
+		this.orderUuid = orderUuid;
+		this.orderId = orderId;
+		this.customerId = customerId;
+		this.itemCount = itemCount;
+		this.orderValue = orderValue;
+		this.orderedAt = orderedAt;
+	}
+
+	public static OrderContribution cancelled(UUID orderUuid, Long orderId, Long customerId) {
+		OrderContribution contribution = new OrderContribution(orderUuid, orderId, customerId, 0, 0.0, null);
+		contribution.cancelled = true;
+		return contribution;
+	}
+
+	/**
+	 * The uuid of the event's order, or null if the event names no order.
+	 * Events of older order services carry no uuid and fall back to one
+	 * derived from the order id.
+	 */
+	public static UUID keyOf(OrderEvent event) {
+		if (event.getOrderUuid() != null) {
+			return event.getOrderUuid();
+		}
+		if (event.getOrderId() == null) {
+			return null;
+		}
+		return UUID.nameUUIDFromBytes(("order/" + event.getOrderId()).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public UUID getId() {
+		return orderUuid;
+	}
+
+	@Override
+	public boolean isNew() {
+		return newContribution;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.newContribution = false;
+	}
+
+	public UUID getOrderUuid() {
+		return orderUuid;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public Long getCustomerId() {
+		return customerId;
+	}
+
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	public double getOrderValue() {
+		return orderValue;
+	}
+
+	public LocalDateTime getOrderedAt() {
+		return orderedAt;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.ewolff.microservice.customer.stats;
+
+import java.util.UUID;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+@RepositoryRestResource(exported = false)
+public interface OrderContributionRepository extends CrudRepository<OrderContribution, UUID> {
+
+}
@@ -4,6 +4,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,15 +13,24 @@ import org.springframework.web.servlet.ModelAndView;
 
 import com.ewolff.microservice.customer.Customer;
 import com.ewolff.microservice.customer.CustomerRepository;
+import com.ewolff.microservice.customer.events.CustomerEventPublisher;
+import com.ewolff.microservice.customer.stats.CustomerOrderStats;
+import com.ewolff.microservice.customer.stats.CustomerOrderStatsRepository;
 
 @Controller
 public class CustomerController {
 
 	private CustomerRepository customerRepository;
+	private CustomerEventPublisher customerEventPublisher;
+	private CustomerOrderStatsRepository customerOrderStatsRepository;
 
 	@Autowired
-	public CustomerController(CustomerRepository customerRepository) {
+	public CustomerController(CustomerRepository customerRepository,
+			@Autowired(required = false) CustomerEventPublisher customerEventPublisher,
+			CustomerOrderStatsRepository customerOrderStatsRepository) {
 		this.customerRepository = customerRepository;
+		this.customerEventPublisher = customerEventPublisher;
+		this.customerOrderStatsRepository = customerOrderStatsRepository;
 	}
 
 	@RequestMapping(value = "/{id}.html", method = RequestMethod.GET, produces = MediaType.TEXT_HTML_VALUE)
@@ -43,6 +53,9 @@ public class CustomerController {
 	@RequestMapping(value = "/form.html", method = RequestMethod.POST)
 	public ModelAndView post(Customer customer, HttpServletRequest httpRequest) {
 		customer = customerRepository.save(customer);
+		if (customerEventPublisher != null) {
+			customerEventPublisher.publishCustomerCreated(customer.getId());
+		}
 		return new ModelAndView("success");
 	}
 
@@ -51,13 +64,38 @@ public class CustomerController {
 			HttpServletRequest httpRequest) {
 		customer.setId(id);
 		customerRepository.save(customer);
+		if (customerEventPublisher != null) {
+			customerEventPublisher.publishCustomerUpdated(id);
+		}
 		return new ModelAndView("success");
 	}
 
 	@RequestMapping(value = "/{id}.html", method = RequestMethod.DELETE)
 	public ModelAndView delete(@PathVariable("id") long id) {
 		customerRepository.deleteById(id);
+		if (customerEventPublisher != null) {
+			customerEventPublisher.publishCustomerDeleted(id);
+		}
 		return new ModelAndView("success");
 	}
 
+	// Existence check for other services: answers with the status code only
+	// and does not load or render the customer
+	@RequestMapping(value = "/customer/{id}/exists", method = { RequestMethod.HEAD, RequestMethod.GET })
+	public ResponseEntity<Void> exists(@PathVariable("id") long id) {
+		if (!customerRepository.existsById(id)) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok().build();
+	}
+
+	// Maintained from the order events, so this does not ask the order service
+	@RequestMapping(value = "/customer/{id}/stats", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<CustomerOrderStats> stats(@PathVariable("id") long id) {
+		if (!customerRepository.existsById(id)) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(customerOrderStatsRepository.findById(id).orElseGet(() -> new CustomerOrderStats(id)));
+	}
+
 }
@@ -23,6 +23,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -121,4 +122,32 @@ public class CustomerWebIntegrationTest {
 		assertEquals(1, customerRepository.findByName("Hoeller").size());
 	}
 
+	@Test
+	public void IsCustomerExistenceReturned() {
+		Customer customerWolff = customerRepository.findByName("Wolff").get(0);
+
+		restTemplate.headForHeaders(customerURL() + "customer/" + customerWolff.getId() + "/exists");
+		try {
+			restTemplate.headForHeaders(customerURL() + "customer/-1/exists");
+			fail("Unknown customer reported as existing");
+		} catch (HttpClientErrorException e) {
+			assertEquals(404, e.getRawStatusCode());
+		}
+	}
+
+	@Test
+	public void AreCustomerStatsReturned() {
+		Customer customerWolff = customerRepository.findByName("Wolff").get(0);
+
+		String stats = restTemplate.getForObject(customerURL() + "customer/" + customerWolff.getId() + "/stats",
+				String.class);
+		assertThat(stats, containsString("\"orderCount\":0"));
+		try {
+			restTemplate.getForObject(customerURL() + "customer/-1/stats", String.class);
+			fail("Stats returned for unknown customer");
+		} catch (HttpClientErrorException e) {
+			assertEquals(404, e.getRawStatusCode());
+		}
+	}
+
 }
@@ -0,0 +1,81 @@
+package com.ewolff.microservice.customer.events;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ewolff.microservice.customer.CustomerApp;
+import com.ewolff.microservice.customer.events.OrderEvent.EventType;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = CustomerApp.class, webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Transactional
+public class ProcessedEventStoreTest {
+
+	@Autowired
+	private ProcessedEventRepository processedEventRepository;
+
+	@Autowired
+	private ConsumedOffsetRepository consumedOffsetRepository;
+
+	private ProcessedEventStore processedEventStore;
+
+	@Before
+	public void setup() {
+		processedEventStore = new ProcessedEventStore(processedEventRepository, consumedOffsetRepository, 100);
+	}
+
+	@Test
+	public void AreProcessedEventsSkipped() {
+		OrderEvent created = new OrderEvent(1L, 42L, null, EventType.ORDER_CREATED);
+		OrderEvent deleted = new OrderEvent(1L, 42L, null, EventType.ORDER_DELETED);
+
+		assertEquals(2, processedEventStore.claim(Arrays.asList(record(0, created), record(1, created),
+				record(2, deleted))).size());
+		List<OrderEvent> replayed = processedEventStore.claim(Arrays.asList(record(0, created), record(3,
+				new OrderEvent(2L, 42L, null, EventType.ORDER_CREATED))));
+		assertEquals(1, replayed.size());
+		assertEquals(Long.valueOf(2L), replayed.get(0).getOrderId());
+	}
+
+	@Test
+	public void AreEventsToldApartByEventId() {
+		// Two order service instances may hand out the same order id
+		OrderEvent first = new OrderEvent(5L, 42L, null, EventType.ORDER_CREATED);
+		first.setEventId(UUID.randomUUID());
+		OrderEvent second = new OrderEvent(5L, 43L, null, EventType.ORDER_CREATED);
+		second.setEventId(UUID.randomUUID());
+
+		assertEquals(1, processedEventStore.claim(Arrays.asList(record(0, first))).size());
+		assertEquals(1, processedEventStore.claim(Arrays.asList(record(1, second), record(0, first))).size());
+	}
+
+	@Test
+	public void AreOffsetsStored() {
+		TopicPartition partition = new TopicPartition("order-events", 1);
+		assertFalse(processedEventStore.nextOffset(partition).isPresent());
+		processedEventStore.claim(Arrays.asList(record(7, new OrderEvent(3L, 42L, null, EventType.ORDER_CREATED))));
+		processedEventStore.claim(Arrays.asList(record(5, new OrderEvent(3L, 42L, null, EventType.ORDER_CREATED))));
+		assertEquals(Long.valueOf(8L), processedEventStore.nextOffset(partition).get());
+	}
+
+	private ConsumerRecord<String, OrderEvent> record(long offset, OrderEvent event) {
+		return new ConsumerRecord<>("order-events", 1, offset, String.valueOf(event.getOrderId()), event);
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.ewolff.microservice.customer.stats;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ewolff.microservice.customer.CustomerApp;
+import com.ewolff.microservice.customer.events.OrderEvent;
+import com.ewolff.microservice.customer.events.OrderEvent.EventType;
+import com.ewolff.microservice.customer.events.OrderEvent.OrderLineEvent;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = CustomerApp.class, webEnvironment = WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Transactional
+public class CustomerOrderStatsUpdaterTest {
+
+	@Autowired
+	private CustomerOrderStatsUpdater statsUpdater;
+
+	@Autowired
+	private CustomerOrderStatsRepository statsRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	public void AreRedeliveredEventsCountedOnce() {
+		OrderEvent first = created(1L, 42L, 3, 30.0, LocalDateTime.of(2020, 10, 1, 12, 0));
+		OrderEvent second = created(2L, 42L, 1, 5.5, LocalDateTime.of(2020, 10, 2, 12, 0));
+		statsUpdater.apply(Arrays.asList(first, second));
+		statsUpdater.apply(Arrays.asList(second));
+
+		CustomerOrderStats stats = stats(42L);
+		assertEquals(2, stats.getOrderCount());
+		assertEquals(4, stats.getTotalItems());
+		assertEquals(35.5, stats.getLifetimeValue(), 0.001);
+		assertEquals(LocalDateTime.of(2020, 10, 2, 12, 0), stats.getLastOrderAt());
+	}
+
+	@Test
+	public void IsDeletedOrderTakenOutOnce() {
+		statsUpdater.apply(Arrays.asList(created(1L, 43L, 3, 30.0, LocalDateTime.of(2020, 10, 1, 12, 0)),
+				created(2L, 43L, 1, 5.5, LocalDateTime.of(2020, 10, 2, 12, 0))));
+		OrderEvent deleted = new OrderEvent(2L, 43L, null, EventType.ORDER_DELETED);
+		statsUpdater.apply(Arrays.asList(deleted, deleted));
+
+		CustomerOrderStats stats = stats(43L);
+		assertEquals(1, stats.getOrderCount());
+		assertEquals(3, stats.getTotalItems());
+		assertEquals(30.0, stats.getLifetimeValue(), 0.001);
+		assertEquals(LocalDateTime.of(2020, 10, 1, 12, 0), stats.getLastOrderAt());
+	}
+
+	@Test
+	public void IsCreationAfterDeletionIgnored() {
+		statsUpdater.apply(Collections.singletonList(new OrderEvent(3L, 44L, null, EventType.ORDER_DELETED)));
+		statsUpdater.apply(Collections.singletonList(created(3L, 44L, 2, 10.0, LocalDateTime.now())));
+		assertFalse(statsRepository.findById(44L).isPresent());
+	}
+
+	@Test
+	public void AreOrdersWithTheSameIdToldApart() {
+		// Order ids of different order service instances may collide
+		OrderEvent first = created(4L, 45L, 2, 20.0, LocalDateTime.of(2020, 10, 1, 12, 0));
+		first.setOrderUuid(UUID.randomUUID());
+		OrderEvent second = created(4L, 45L, 1, 5.0, LocalDateTime.of(2020, 10, 2, 12, 0));
+		second.setOrderUuid(UUID.randomUUID());
+		statsUpdater.apply(Arrays.asList(first, second));
+		OrderEvent deleted = new OrderEvent(4L, 45L, null, EventType.ORDER_DELETED);
+		deleted.setOrderUuid(second.getOrderUuid());
+		statsUpdater.apply(Collections.singletonList(deleted));
+
+		CustomerOrderStats stats = stats(45L);
+		assertEquals(1, stats.getOrderCount());
+		assertEquals(2, stats.getTotalItems());
+		assertEquals(20.0, stats.getLifetimeValue(), 0.001);
+	}
+
+	private OrderEvent created(long orderId, long customerId, int count, double totalPrice,
+			LocalDateTime timestamp) {
+		OrderEvent event = new OrderEvent(orderId, customerId,
+				Collections.singletonList(new OrderLineEvent(1L, count)), EventType.ORDER_CREATED);
+		event.setTotalPrice(totalPrice);
+		event.setTimestamp(timestamp);
+		return event;
+	}
+
+	// The increments bypass the persistence context
+	private CustomerOrderStats stats(long customerId) {
+		entityManager.flush();
+		entityManager.clear();
+		return statsRepository.findById(customerId).get();
+	}
+
+}
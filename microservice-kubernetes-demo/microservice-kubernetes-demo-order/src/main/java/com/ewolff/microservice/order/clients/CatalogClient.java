@@ -1,29 +1,32 @@
 package com.ewolff.microservice.order.clients;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.PagedModel;
-import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 
 @Component
 public class CatalogClient {
@@ -34,49 +37,37 @@ public class CatalogClient {
 
 	}
 
+	public static class ItemResources extends CollectionModel<Item> {
+
+	}
+
 	private RestTemplate restTemplate;
 	private String catalogServiceHost;
 	private long catalogServicePort;
+	private CacheManager cacheManager;
+	private Executor executor;
 
 	@Autowired
 	public CatalogClient(@Value("${catalog.service.host:catalog}") String catalogServiceHost,
-			@Value("${catalog.service.port:8080}") long catalogServicePort) {
+			@Value("${catalog.service.port:8080}") long catalogServicePort, RestTemplate serviceRestTemplate,
+			CacheManager cacheManager, @Qualifier("serviceCallExecutor") Executor executor) {
 		super();
-		this.restTemplate = getRestTemplate();
+		this.restTemplate = serviceRestTemplate;
 		this.catalogServiceHost = catalogServiceHost;
 		this.catalogServicePort = catalogServicePort;
+		this.cacheManager = cacheManager;
+		this.executor = executor;
 	}
 
-	protected RestTemplate getRestTemplate() {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-		mapper.registerModule(new Jackson2HalModule());
-
-		MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-		converter.setSupportedMediaTypes(Arrays.asList(MediaTypes.HAL_JSON));
-		converter.setObjectMapper(mapper);
-
-		return new RestTemplate(Collections.<HttpMessageConverter<?>>singletonList(converter));
-	}
-
-	@CircuitBreaker(name = "catalogService", fallbackMethod = "priceFallback")
-	@Retry(name = "catalogService")
-	public double price(long itemId) {
-		return getOne(itemId).getPrice();
-	}
-
-	public double priceFallback(long itemId, Throwable t) {
-		log.warn("Catalog service unavailable, returning default price for item: {}. Error: {}", itemId, t.getMessage());
-		return 0.0;
-	}
-
-	@Cacheable(value = "itemsList", unless = "#result == null || #result.isEmpty()")
+	// Kept loaded by the refresh-ahead cache, which needs the loader of a sync lookup
+	@Cacheable(value = "itemsList", sync = true)
 	@CircuitBreaker(name = "catalogService", fallbackMethod = "findAllFallback")
 	@Retry(name = "catalogService")
 	public Collection<Item> findAll() {
 		log.info("Fetching all items from Catalog service (cache miss)");
 		PagedModel<Item> pagedResources = restTemplate.getForObject(catalogURL(), ItemPagedResources.class);
-		return pagedResources.getContent();
+		// Copy into a plain list so the cached value can be read back from Redis
+		return new ArrayList<Item>(pagedResources.getContent());
 	}
 
 	public Collection<Item> findAllFallback(Throwable t) {
@@ -90,7 +81,7 @@ public class CatalogClient {
 		return url;
 	}
 
-	@Cacheable(value = "items", key = "#itemId", unless = "#result == null")
+	@Cacheable(value = "items", key = "#itemId", unless = "#result == null || #result.unavailable")
 	@CircuitBreaker(name = "catalogService", fallbackMethod = "getOneFallback")
 	@Retry(name = "catalogService")
 	public Item getOne(long itemId) {
@@ -100,13 +91,63 @@ public class CatalogClient {
 
 	public Item getOneFallback(long itemId, Throwable t) {
 		log.warn("Catalog service unavailable, returning fallback item for id: {}. Error: {}", itemId, t.getMessage());
-		return new Item(itemId, "Item Unavailable", 0.0);
+		return Item.unavailable(itemId);
+	}
+
+	/**
+	 * Looks up several items at once. Items already in the {@code items} cache
+	 * are served from there, all others are fetched with a single request and
+	 * added to the cache. Ids unknown to the catalog are missing from the result.
+	 * If the catalog cannot be reached, every id maps to an
+	 * {@link Item#unavailable(long) unavailable} placeholder.
+	 */
+	@CircuitBreaker(name = "catalogService", fallbackMethod = "getManyFallback")
+	@Retry(name = "catalogService")
+	public Map<Long, Item> getMany(Collection<Long> itemIds) {
+		return loadMany(itemIds);
+	}
+
+	public Map<Long, Item> getManyFallback(Collection<Long> itemIds, Throwable t) {
+		log.warn("Catalog service unavailable, returning fallback items for ids: {}. Error: {}", itemIds, t.getMessage());
+		Map<Long, Item> result = new HashMap<>();
+		for (Long itemId : itemIds) {
+			result.put(itemId, Item.unavailable(itemId));
+		}
+		return result;
+	}
+
+	@TimeLimiter(name = "catalogService")
+	@CircuitBreaker(name = "catalogService", fallbackMethod = "getManyAsyncFallback")
+	@Retry(name = "catalogService")
+	public CompletableFuture<Map<Long, Item>> getManyAsync(Collection<Long> itemIds) {
+		return CompletableFuture.supplyAsync(() -> loadMany(itemIds), executor);
+	}
+
+	public CompletableFuture<Map<Long, Item>> getManyAsyncFallback(Collection<Long> itemIds, Throwable t) {
+		return CompletableFuture.completedFuture(getManyFallback(itemIds, t));
 	}
 
-	// Scheduled cache cleanup (every hour)
-	@Scheduled(fixedRate = 3600000)
-	@CacheEvict(value = {"items", "itemsList"}, allEntries = true)
-	public void evictAllItemsCache() {
-		log.info("Evicting all items cache");
+	private Map<Long, Item> loadMany(Collection<Long> itemIds) {
+		Cache cache = cacheManager.getCache("items");
+		Map<Long, Item> result = new HashMap<>();
+		List<Long> misses = new ArrayList<>();
+		for (Long itemId : new LinkedHashSet<>(itemIds)) {
+			Item item = cache.get(itemId, Item.class);
+			if (item != null) {
+				result.put(itemId, item);
+			} else {
+				misses.add(itemId);
+			}
+		}
+		if (!misses.isEmpty()) {
+			log.info("Fetching items {} from Catalog service (cache miss)", misses);
+			ItemResources resources = restTemplate.getForObject(catalogURL() + "search/findByIdIn?ids={ids}",
+					ItemResources.class, StringUtils.collectionToCommaDelimitedString(misses));
+			for (Item item : resources.getContent()) {
+				result.put(item.getItemId(), item);
+				cache.put(item.getItemId(), item);
+			}
+		}
+		return result;
 	}
 }
@@ -0,0 +1,19 @@
+package com.ewolff.microservice.order.clients;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The catalog could not be asked, so the items of an order can neither be
+ * validated nor priced. The order may be placed again later.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CatalogUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CatalogUnavailableException(String message) {
+		super(message);
+	}
+
+}
@@ -1,31 +1,25 @@
 package com.ewolff.microservice.order.clients;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
-import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 
 @Component
 public class CustomerClient {
@@ -35,6 +29,8 @@ public class CustomerClient {
 	private RestTemplate restTemplate;
 	private String customerServiceHost;
 	private long customerServicePort;
+	private Executor executor;
+	private CustomerValidityCache validityCache;
 
 	static class CustomerPagedResources extends PagedModel<Customer> {
 
@@ -42,26 +38,20 @@ public class CustomerClient {
 
 	@Autowired
 	public CustomerClient(@Value("${customer.service.host:customer}") String customerServiceHost,
-			@Value("${customer.service.port:8080}") long customerServicePort) {
+			@Value("${customer.service.port:8080}") long customerServicePort, RestTemplate serviceRestTemplate,
+			@Qualifier("serviceCallExecutor") Executor executor, CustomerValidityCache validityCache) {
 		super();
-		this.restTemplate = getRestTemplate();
+		this.restTemplate = serviceRestTemplate;
 		this.customerServiceHost = customerServiceHost;
 		this.customerServicePort = customerServicePort;
+		this.executor = executor;
+		this.validityCache = validityCache;
 	}
 
 	@CircuitBreaker(name = "customerService", fallbackMethod = "isValidCustomerIdFallback")
 	@Retry(name = "customerService")
 	public boolean isValidCustomerId(long customerId) {
-		RestTemplate restTemplate = new RestTemplate();
-		try {
-			ResponseEntity<String> entity = restTemplate.getForEntity(customerURL() + customerId, String.class);
-			return entity.getStatusCode().is2xxSuccessful();
-		} catch (final HttpClientErrorException e) {
-			if (e.getStatusCode().value() == 404)
-				return false;
-			else
-				throw e;
-		}
+		return validityCache.get(customerId, this::checkCustomerId);
 	}
 
 	public boolean isValidCustomerIdFallback(long customerId, Throwable t) {
@@ -70,26 +60,44 @@ public class CustomerClient {
 		return true;
 	}
 
-	protected RestTemplate getRestTemplate() {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-		mapper.registerModule(new Jackson2HalModule());
+	@TimeLimiter(name = "customerService")
+	@CircuitBreaker(name = "customerService", fallbackMethod = "isValidCustomerIdAsyncFallback")
+	@Retry(name = "customerService")
+	public CompletableFuture<Boolean> isValidCustomerIdAsync(long customerId) {
+		Boolean cached = validityCache.getIfPresent(customerId);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return CompletableFuture.supplyAsync(() -> validityCache.get(customerId, this::checkCustomerId), executor);
+	}
 
-		MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-		converter.setSupportedMediaTypes(Arrays.asList(MediaTypes.HAL_JSON));
-		converter.setObjectMapper(mapper);
+	public CompletableFuture<Boolean> isValidCustomerIdAsyncFallback(long customerId, Throwable t) {
+		return CompletableFuture.completedFuture(isValidCustomerIdFallback(customerId, t));
+	}
 
-		return new RestTemplate(Collections.<HttpMessageConverter<?>>singletonList(converter));
+	private boolean checkCustomerId(long customerId) {
+		try {
+			// HEAD on the existence endpoint, so neither side builds a customer body
+			restTemplate.headForHeaders(customerURL() + customerId + "/exists");
+			return true;
+		} catch (final HttpClientErrorException e) {
+			if (e.getStatusCode().value() == 404)
+				return false;
+			else
+				throw e;
+		}
 	}
 
-	@Cacheable(value = "customersList", unless = "#result == null || #result.isEmpty()")
+	// Kept loaded by the refresh-ahead cache, which needs the loader of a sync lookup
+	@Cacheable(value = "customersList", sync = true)
 	@CircuitBreaker(name = "customerService", fallbackMethod = "findAllFallback")
 	@Retry(name = "customerService")
 	public Collection<Customer> findAll() {
 		log.info("Fetching all customers from Customer service (cache miss)");
-		PagedModel<Customer> pagedResources = getRestTemplate().getForObject(customerURL(),
+		PagedModel<Customer> pagedResources = restTemplate.getForObject(customerURL(),
 				CustomerPagedResources.class);
-		return pagedResources.getContent();
+		// Copy into a plain list so the cached value can be read back from Redis
+		return new ArrayList<Customer>(pagedResources.getContent());
 	}
 
 	public Collection<Customer> findAllFallback(Throwable t) {
@@ -116,11 +124,4 @@ public class CustomerClient {
 		log.warn("Customer service unavailable, returning fallback customer for id: {}. Error: {}", customerId, t.getMessage());
 		return new Customer(customerId, "Unknown", "Customer", "unknown@example.com", "Unknown Address", "Unknown City");
 	}
-
-	// Scheduled cache cleanup (every hour)
-	@Scheduled(fixedRate = 3600000)
-	@CacheEvict(value = {"customers", "customersList"}, allEntries = true)
-	public void evictAllCustomersCache() {
-		log.info("Evicting all customers cache");
-	}
 }
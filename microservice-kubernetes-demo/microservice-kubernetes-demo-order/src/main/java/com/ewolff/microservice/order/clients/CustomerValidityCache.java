@@ -0,0 +1,168 @@
+package com.ewolff.microservice.order.clients;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Remembers whether a customer id exists. Valid and invalid ids are kept with
+ * separate TTLs in a local Caffeine cache in front of Redis, and concurrent
+ * lookups of the same id share one call to the customer service.
+ * <p>
+ * The local tier expires every entry on its own TTL and, once full, evicts
+ * the least used ids one at a time, so the hot ids stay cached. The ids are
+ * boxed as keys, which a primitive long map would avoid, but such a map
+ * would need its own expiry and eviction.
+ */
+@Component
+public class CustomerValidityCache {
+
+	private final Logger log = LoggerFactory.getLogger(CustomerValidityCache.class);
+
+	private static final String KEY_PREFIX = "customerValidity::";
+
+	private final Cache<Long, Boolean> local;
+
+	private final Map<Long, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+	private RedisTemplate<String, Object> redisTemplate;
+	private Duration positiveTtl;
+	private Duration negativeTtl;
+
+	@Autowired
+	public CustomerValidityCache(RedisTemplate<String, Object> redisTemplate,
+			@Value("${customer.validity-cache.positive-ttl:900000}") long positiveTtl,
+			@Value("${customer.validity-cache.negative-ttl:30000}") long negativeTtl,
+			@Value("${customer.validity-cache.max-entries:10000}") int maxEntries) {
+		super();
+		this.redisTemplate = redisTemplate;
+		this.positiveTtl = Duration.ofMillis(positiveTtl);
+		this.negativeTtl = Duration.ofMillis(negativeTtl);
+		this.local = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(new ValidityExpiry())
+				.build();
+	}
+
+	/**
+	 * Returns the cached validity of the customer id or {@code null} if it is
+	 * not known.
+	 */
+	public Boolean getIfPresent(long customerId) {
+		Boolean valid = local.getIfPresent(customerId);
+		if (valid != null) {
+			return valid;
+		}
+		valid = readShared(customerId);
+		if (valid != null) {
+			local.put(customerId, valid);
+		}
+		return valid;
+	}
+
+	/**
+	 * Returns the validity of the customer id, calling the loader on a miss.
+	 * Callers asking for an id that is already being loaded wait for that
+	 * result instead of calling the loader again.
+	 */
+	public boolean get(long customerId, LongPredicate loader) {
+		Boolean cached = getIfPresent(customerId);
+		if (cached != null) {
+			return cached;
+		}
+		CompletableFuture<Boolean> flight = new CompletableFuture<>();
+		CompletableFuture<Boolean> running = inFlight.putIfAbsent(customerId, flight);
+		if (running != null) {
+			return await(running);
+		}
+		try {
+			boolean valid = loader.test(customerId);
+			put(customerId, valid);
+			flight.complete(valid);
+			return valid;
+		} catch (RuntimeException e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(customerId, flight);
+		}
+	}
+
+	public void put(long customerId, boolean valid) {
+		local.put(customerId, valid);
+		try {
+			redisTemplate.opsForValue().set(KEY_PREFIX + customerId, valid, ttl(valid));
+		} catch (RuntimeException e) {
+			log.debug("Could not store validity of customer {} in Redis: {}", customerId, e.getMessage());
+		}
+	}
+
+	public void evict(long customerId) {
+		local.invalidate(customerId);
+		try {
+			redisTemplate.delete(KEY_PREFIX + customerId);
+		} catch (RuntimeException e) {
+			log.debug("Could not evict validity of customer {} from Redis: {}", customerId, e.getMessage());
+		}
+	}
+
+	private Boolean readShared(long customerId) {
+		try {
+			return (Boolean) redisTemplate.opsForValue().get(KEY_PREFIX + customerId);
+		} catch (RuntimeException e) {
+			log.debug("Could not read validity of customer {} from Redis: {}", customerId, e.getMessage());
+			return null;
+		}
+	}
+
+	private Duration ttl(boolean valid) {
+		return valid ? positiveTtl : negativeTtl;
+	}
+
+	private boolean await(CompletableFuture<Boolean> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	// Valid and invalid ids expire after their own TTL, counted from the
+	// last write
+	private class ValidityExpiry implements Expiry<Long, Boolean> {
+
+		@Override
+		public long expireAfterCreate(Long customerId, Boolean valid, long currentTime) {
+			return ttl(valid).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(Long customerId, Boolean valid, long currentTime, long currentDuration) {
+			return ttl(valid).toNanos();
+		}
+
+		@Override
+		public long expireAfterRead(Long customerId, Boolean valid, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -5,6 +5,7 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.springframework.hateoas.RepresentationModel;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class Item extends RepresentationModel {
@@ -16,6 +17,10 @@ public class Item extends RepresentationModel {
 	@JsonProperty("id")
 	private long itemId;
 
+	// Placeholder returned while the catalog cannot be reached, never cached
+	@JsonIgnore
+	private boolean unavailable;
+
 	public Item() {
 		super();
 	}
@@ -27,6 +32,21 @@ public class Item extends RepresentationModel {
 		this.price = price;
 	}
 
+	/**
+	 * Placeholder for an item the catalog could not be asked about. Its name
+	 * and price are not the item's.
+	 */
+	public static Item unavailable(long id) {
+		Item item = new Item(id, "Item Unavailable", 0.0);
+		item.unavailable = true;
+		return item;
+	}
+
+	@JsonIgnore
+	public boolean isUnavailable() {
+		return unavailable;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -1,12 +1,16 @@
 package com.ewolff.microservice.order.config;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -16,6 +20,15 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.hateoas.RepresentationModel;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableCaching
@@ -45,19 +58,46 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, Environment environment,
+            @Qualifier("serviceCallExecutor") Executor serviceCallExecutor,
+            ObjectProvider<MeterRegistry> meterRegistry) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))  // Default 10 minute expiration
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer()))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
                 .withCacheConfiguration("items", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(30)))  // Item cache 30 minutes
+                    cacheConfig.entryTtl(Duration.ofMinutes(30)))  // Item cache 30 minutes
                 .withCacheConfiguration("customers", 
-                    RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(15)))  // Customer cache 15 minutes
+                    cacheConfig.entryTtl(Duration.ofMinutes(15)))  // Customer cache 15 minutes
+                // Refreshed ahead long before they expire, see cache.refresh-ahead
+                .withCacheConfiguration("itemsList",
+                    cacheConfig.entryTtl(Duration.ofMinutes(30)))
+                .withCacheConfiguration("customersList",
+                    cacheConfig.entryTtl(Duration.ofMinutes(30)))
                 .build();
+        // Not a bean of its own, so the per-cache configurations have to be applied here
+        redisCacheManager.afterPropertiesSet();
+
+        // Redis stays the tier shared by all replicas, each replica keeps the hot entries in memory
+        return new TwoLevelCacheManager(redisCacheManager, environment, serviceCallExecutor,
+                meterRegistry.getIfAvailable());
+    }
+
+    private GenericJackson2JsonRedisSerializer cacheValueSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.addMixIn(RepresentationModel.class, IgnoreLinks.class);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), DefaultTyping.NON_FINAL, As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+        return new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    // Hypermedia links of the client DTOs are not needed in the cache and cannot be read back with type info
+    @JsonIgnoreProperties("links")
+    abstract static class IgnoreLinks {
     }
 }
@@ -0,0 +1,210 @@
+package com.ewolff.microservice.order.config;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Keeps hot entries loaded. Each value is stored with the time it was loaded.
+ * Once it is older than the refresh interval, a read still returns it and
+ * starts one reload in the background. The TTL of the wrapped cache remains
+ * the hard limit: only an entry that is missing altogether is loaded on the
+ * calling thread, and concurrent callers wait for that single load.
+ * <p>
+ * Loading goes through {@link #get(Object, Callable)}, so the cached methods
+ * have to use {@code @Cacheable(sync = true)}.
+ */
+class RefreshAheadCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    /**
+     * Value as stored in the wrapped cache.
+     */
+    public static class Entry {
+
+        private Object value;
+
+        private long loadedAt;
+
+        public Entry() {
+        }
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+
+        public long getLoadedAt() {
+            return loadedAt;
+        }
+
+        public void setLoadedAt(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final Cache target;
+
+    private final long refreshAfter;
+
+    private final Executor executor;
+
+    private final Map<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    RefreshAheadCache(Cache target, long refreshAfter, Executor executor) {
+        this.target = target;
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = entry(key);
+        return entry != null ? new SimpleValueWrapper(entry.getValue()) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Entry entry = entry(key);
+        Object value = entry != null ? entry.getValue() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return (T) load(key, valueLoader);
+        }
+        if (System.currentTimeMillis() - entry.getLoadedAt() >= refreshAfter) {
+            refresh(key, valueLoader);
+        }
+        return (T) entry.getValue();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, new Entry(value, System.currentTimeMillis()));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = target.putIfAbsent(key, new Entry(value, System.currentTimeMillis()));
+        if (existing == null) {
+            return null;
+        }
+        Object current = existing.get();
+        return new SimpleValueWrapper(current instanceof Entry ? ((Entry) current).getValue() : current);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private Entry entry(Object key) {
+        ValueWrapper wrapper = target.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof Entry)) {
+            return null;
+        }
+        return (Entry) wrapper.get();
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(key, flight);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            Object value = valueLoader.call();
+            put(key, value);
+            flight.complete(value);
+            return value;
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loading.remove(key, flight);
+        }
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, flight) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Object value = valueLoader.call();
+                    put(key, value);
+                    flight.complete(value);
+                } catch (Exception e) {
+                    // The current value is served until the next read retries or the entry expires
+                    log.warn("Refreshing {} in cache {} failed: {}", key, getName(), e.getMessage());
+                    flight.completeExceptionally(e);
+                } finally {
+                    loading.remove(key, flight);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.ewolff.microservice.order.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Outbound HTTP for the catalog and customer clients: one pooled keep-alive
+ * connection manager, timeouts, gzip and a single HAL object mapper shared by
+ * all calls. Asynchronous client calls run on their own bounded executor.
+ */
+@Configuration
+public class RestClientConfig {
+
+    @Value("${http.client.max-total:100}")
+    private int maxTotal;
+
+    @Value("${http.client.max-per-route:20}")
+    private int maxPerRoute;
+
+    @Value("${http.client.connect-timeout:2000}")
+    private int connectTimeout;
+
+    @Value("${http.client.read-timeout:3000}")
+    private int readTimeout;
+
+    @Value("${http.client.connection-request-timeout:1000}")
+    private int connectionRequestTimeout;
+
+    @Value("${http.client.keep-alive:30000}")
+    private long keepAlive;
+
+    @Value("${http.client.executor.core-size:8}")
+    private int executorCoreSize;
+
+    @Value("${http.client.executor.max-size:32}")
+    private int executorMaxSize;
+
+    @Value("${http.client.executor.queue-capacity:200}")
+    private int executorQueueCapacity;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient serviceHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        // Content compression is on by default: requests accept gzip and responses are decompressed
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate serviceRestTemplate(CloseableHttpClient serviceHttpClient) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new Jackson2HalModule());
+
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        converter.setSupportedMediaTypes(Arrays.asList(MediaTypes.HAL_JSON));
+        converter.setObjectMapper(mapper);
+
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(serviceHttpClient));
+        restTemplate.setMessageConverters(Collections.<HttpMessageConverter<?>>singletonList(converter));
+        return restTemplate;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor serviceCallExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorCoreSize);
+        executor.setMaxPoolSize(executorMaxSize);
+        executor.setQueueCapacity(executorQueueCapacity);
+        executor.setThreadNamePrefix("service-call-");
+        return executor;
+    }
+}
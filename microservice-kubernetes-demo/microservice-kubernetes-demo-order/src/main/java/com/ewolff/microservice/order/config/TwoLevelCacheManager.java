@@ -0,0 +1,98 @@
+package com.ewolff.microservice.order.config;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Wraps every cache of the Redis cache manager in a {@link TwoLevelCache}. The
+ * local tier of each cache is sized and expired with
+ * {@code cache.local.<name>.max-size} and {@code cache.local.<name>.ttl}
+ * (milliseconds), falling back to {@code cache.local.default.*}. The local TTL
+ * should stay well below the Redis TTL: it bounds how long a replica can serve
+ * an entry that another replica has already evicted.
+ * <p>
+ * Caches with a {@code cache.refresh-ahead.<name>.refresh-after} setting are
+ * additionally wrapped in a {@link RefreshAheadCache}.
+ * <p>
+ * The statistics of the local tiers are exported as the cache.* metrics with
+ * the tag {@code tier=local}, if there is a meter registry.
+ */
+class TwoLevelCacheManager implements CacheManager {
+
+    private static final String PREFIX = "cache.local.";
+
+    private static final String REFRESH_AHEAD_PREFIX = "cache.refresh-ahead.";
+
+    private final CacheManager remote;
+
+    private final Environment environment;
+
+    private final Executor refreshExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    TwoLevelCacheManager(CacheManager remote, Environment environment, Executor refreshExecutor,
+            MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.environment = environment;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> decorate(n, new TwoLevelCache(localCache(n), remoteCache)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private Cache decorate(String name, Cache cache) {
+        Long refreshAfter = environment.getProperty(REFRESH_AHEAD_PREFIX + name + ".refresh-after", Long.class);
+        return refreshAfter != null ? new RefreshAheadCache(cache, refreshAfter, refreshExecutor) : cache;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache(String name) {
+        long maxSize = property(name, "max-size", 1000L);
+        long ttl = property(name, "ttl", 60000L);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "tier", "local");
+        }
+        return cache;
+    }
+
+    private long property(String cacheName, String key, long defaultValue) {
+        Long defaultSetting = environment.getProperty(PREFIX + "default." + key, Long.class, defaultValue);
+        return environment.getProperty(PREFIX + cacheName + "." + key, Long.class, defaultSetting);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.ewolff.microservice.order.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.order.clients.CustomerValidityCache;
+
+/**
+ * Evicts exactly the cache entries affected by a change in the catalog or
+ * customer service. The list caches hold all items or customers under a
+ * single key, so that key is evicted on every change.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private final CacheManager cacheManager;
+    private final CustomerValidityCache customerValidityCache;
+
+    @Autowired
+    public CacheInvalidationListener(CacheManager cacheManager, CustomerValidityCache customerValidityCache) {
+        this.cacheManager = cacheManager;
+        this.customerValidityCache = customerValidityCache;
+    }
+
+    @KafkaListener(topics = "${kafka.topic.item-events:item-events}",
+                   containerFactory = "itemEventListenerContainerFactory")
+    public void handleItemEvent(ItemEvent event) {
+        log.info("Received item event: itemId={}, type={}", event.getItemId(), event.getEventType());
+        evict("items", event.getItemId());
+        evict("itemsList", SimpleKey.EMPTY);
+    }
+
+    @KafkaListener(topics = "${kafka.topic.customer-events:customer-events}",
+                   containerFactory = "customerEventListenerContainerFactory")
+    public void handleCustomerEvent(CustomerEvent event) {
+        log.info("Received customer event: customerId={}, type={}", event.getCustomerId(), event.getEventType());
+        evict("customers", event.getCustomerId());
+        evict("customersList", SimpleKey.EMPTY);
+        // Created or deleted customers change the answer of the existence check
+        if (event.getEventType() != CustomerEvent.EventType.CUSTOMER_UPDATED) {
+            customerValidityCache.evict(event.getCustomerId());
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
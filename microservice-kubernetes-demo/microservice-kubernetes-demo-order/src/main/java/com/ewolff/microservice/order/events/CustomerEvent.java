@@ -0,0 +1,35 @@
+package com.ewolff.microservice.order.events;
+
+import java.time.LocalDateTime;
+
+public class CustomerEvent {
+
+    public enum EventType {
+        CUSTOMER_CREATED,
+        CUSTOMER_UPDATED,
+        CUSTOMER_DELETED
+    }
+
+    private Long customerId;
+    private EventType eventType;
+    private LocalDateTime timestamp;
+
+    public CustomerEvent() {
+    }
+
+    public CustomerEvent(Long customerId, EventType eventType) {
+        this.customerId = customerId;
+        this.eventType = eventType;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    public EventType getEventType() { return eventType; }
+    public void setEventType(EventType eventType) { this.eventType = eventType; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
@@ -1,39 +1,59 @@
 package com.ewolff.microservice.order.events;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+
+/**
+ * The producer is built from the {@code spring.kafka.producer} settings, so
+ * batching, compression and in-flight limits are tuned in application.yml.
+ * Idempotence is always on: retries after a timeout must not duplicate or
+ * reorder the events of an order.
+ */
 @Configuration
+@EnableConfigurationProperties(KafkaProperties.class)
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
 public class KafkaConfig {
 
-    @Value("${spring.kafka.bootstrap-servers:kafka:9092}")
-    private String bootstrapServers;
+    // binary (OrderEventCodec) or json
+    @Value("${kafka.order-events.format:binary}")
+    private String orderEventFormat;
 
     @Bean
-    public ProducerFactory<String, OrderEvent> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    public ProducerFactory<String, OrderEvent> producerFactory(KafkaProperties kafkaProperties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Object> configProps = kafkaProperties.buildProducerProperties();
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                "json".equals(orderEventFormat) ? JsonSerializer.class : OrderEventSerializer.class);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        DefaultKafkaProducerFactory<String, OrderEvent> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Registers the producer's own metrics, e.g. record-send-rate, batch-size-avg and request-latency-avg
+        meterRegistry.ifAvailable(registry -> factory.addListener(
+                new MicrometerProducerListener<>(registry, Collections.singletonList(Tag.of("producer", "order-events")))));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, OrderEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, OrderEvent> kafkaTemplate(ProducerFactory<String, OrderEvent> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
@@ -0,0 +1,267 @@
+package com.ewolff.microservice.order.events;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.ewolff.microservice.order.events.OrderEvent.EventType;
+import com.ewolff.microservice.order.events.OrderEvent.OrderLineEvent;
+
+/**
+ * Binary encoding of {@link OrderEvent}. Numbers are written as varints, so
+ * small ids and counts take one or two bytes, and there are no field names or
+ * type headers. The layout is:
+ *
+ * <pre>
+ * magic (1 byte) | version (1 byte) | event type (1 byte) | present fields (1 byte)
+ * order id | customer id | timestamp seconds | timestamp nanos
+ * line count | (item id | count) per line
+ * total price (8 bytes, IEEE 754)
+ * event id (16 bytes, most significant half first)
+ * order uuid (16 bytes, most significant half first)
+ * </pre>
+ *
+ * Absent fields are skipped. Fields added later are appended at the end, so
+ * older readers decode newer events by ignoring the trailing bytes. The catalog and customer services carry a copy of
+ * this class, which has to be kept in sync.
+ */
+public final class OrderEventCodec {
+
+    /** First byte of every binary event. JSON events start with '{' instead. */
+    public static final byte MAGIC = (byte) 0xB7;
+
+    private static final byte VERSION = 1;
+
+    private static final int ORDER_ID = 1;
+    private static final int CUSTOMER_ID = 1 << 1;
+    private static final int TIMESTAMP = 1 << 2;
+    private static final int ORDER_LINES = 1 << 3;
+    private static final int TOTAL_PRICE = 1 << 4;
+    private static final int EVENT_ID = 1 << 5;
+    private static final int ORDER_UUID = 1 << 6;
+
+    // Wire codes of the event types, independent of the enum's declaration order
+    private static final EventType[] EVENT_TYPES = { null, EventType.ORDER_CREATED, EventType.ORDER_DELETED,
+            EventType.ORDER_UPDATED };
+
+    private OrderEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(OrderEvent event) {
+        List<OrderLineEvent> lines = event.getOrderLines();
+        Writer out = new Writer(32 + (lines != null ? lines.size() * 6 : 0));
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(eventTypeCode(event.getEventType()));
+
+        int present = 0;
+        present |= event.getOrderId() != null ? ORDER_ID : 0;
+        present |= event.getCustomerId() != null ? CUSTOMER_ID : 0;
+        present |= event.getTimestamp() != null ? TIMESTAMP : 0;
+        present |= lines != null ? ORDER_LINES : 0;
+        present |= event.getTotalPrice() != null ? TOTAL_PRICE : 0;
+        present |= event.getEventId() != null ? EVENT_ID : 0;
+        present |= event.getOrderUuid() != null ? ORDER_UUID : 0;
+        out.writeByte(present);
+
+        if (event.getOrderId() != null) {
+            out.writeSignedVarLong(event.getOrderId());
+        }
+        if (event.getCustomerId() != null) {
+            out.writeSignedVarLong(event.getCustomerId());
+        }
+        if (event.getTimestamp() != null) {
+            out.writeSignedVarLong(event.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(event.getTimestamp().getNano());
+        }
+        if (lines != null) {
+            out.writeVarLong(lines.size());
+            for (OrderLineEvent line : lines) {
+                if (line.getItemId() == null) {
+                    throw new SerializationException("Order line without item id in order " + event.getOrderId());
+                }
+                out.writeSignedVarLong(line.getItemId());
+                out.writeSignedVarLong(line.getCount());
+            }
+        }
+        if (event.getTotalPrice() != null) {
+            out.writeLong(Double.doubleToLongBits(event.getTotalPrice()));
+        }
+        if (event.getEventId() != null) {
+            out.writeLong(event.getEventId().getMostSignificantBits());
+            out.writeLong(event.getEventId().getLeastSignificantBits());
+        }
+        if (event.getOrderUuid() != null) {
+            out.writeLong(event.getOrderUuid().getMostSignificantBits());
+            out.writeLong(event.getOrderUuid().getLeastSignificantBits());
+        }
+        return out.toByteArray();
+    }
+
+    public static OrderEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary order event");
+        }
+        try {
+            Reader in = new Reader(data, 1);
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported order event version " + version);
+            }
+            OrderEvent event = new OrderEvent();
+            event.setEventType(eventType(in.readByte()));
+            int present = in.readByte();
+            if ((present & ORDER_ID) != 0) {
+                event.setOrderId(in.readSignedVarLong());
+            }
+            if ((present & CUSTOMER_ID) != 0) {
+                event.setCustomerId(in.readSignedVarLong());
+            }
+            if ((present & TIMESTAMP) != 0) {
+                long seconds = in.readSignedVarLong();
+                int nanos = (int) in.readVarLong();
+                event.setTimestamp(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+            }
+            if ((present & ORDER_LINES) != 0) {
+                int count = (int) in.readVarLong();
+                // Every line takes at least two bytes, so a corrupt count cannot allocate a huge list
+                List<OrderLineEvent> lines = new ArrayList<>(Math.min(count, in.remaining() / 2));
+                for (int i = 0; i < count; i++) {
+                    long itemId = in.readSignedVarLong();
+                    int itemCount = (int) in.readSignedVarLong();
+                    lines.add(new OrderLineEvent(itemId, itemCount));
+                }
+                event.setOrderLines(lines);
+            }
+            if ((present & TOTAL_PRICE) != 0) {
+                event.setTotalPrice(Double.longBitsToDouble(in.readLong()));
+            }
+            if ((present & EVENT_ID) != 0) {
+                event.setEventId(new UUID(in.readLong(), in.readLong()));
+            }
+            if ((present & ORDER_UUID) != 0) {
+                event.setOrderUuid(new UUID(in.readLong(), in.readLong()));
+            }
+            return event;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated order event", e);
+        }
+    }
+
+    private static int eventTypeCode(EventType eventType) {
+        for (int code = 1; code < EVENT_TYPES.length; code++) {
+            if (EVENT_TYPES[code] == eventType) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    private static EventType eventType(int code) {
+        if (code >= EVENT_TYPES.length) {
+            throw new SerializationException("Unknown order event type " + code);
+        }
+        return EVENT_TYPES[code];
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        // Zigzag encoding keeps small negative numbers short as well
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int readByte() {
+            return buffer[position++] & 0xFF;
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in order event");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+    }
+}
@@ -1,83 +1,82 @@
 package com.ewolff.microservice.order.events;
 
 import java.util.List;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
-import org.springframework.util.concurrent.ListenableFuture;
-import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import com.ewolff.microservice.order.events.OrderEvent.EventType;
 import com.ewolff.microservice.order.events.OrderEvent.OrderLineEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Records order events in the outbox. Callers run this in the transaction
+ * that changes the order, so the event is stored if and only if the change
+ * is committed. The {@link OutboxRelay} sends it to Kafka afterwards.
+ */
 @Component
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
 public class OrderEventPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventPublisher.class);
 
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
-    
+    private final OutboxRepository outboxRepository;
+
+    private final ObjectMapper objectMapper;
+
     @Value("${kafka.topic.order-events:order-events}")
     private String orderEventsTopic;
-    
+
     @Value("${kafka.enabled:true}")
     private boolean kafkaEnabled;
 
     @Autowired
-    public OrderEventPublisher(KafkaTemplate<String, OrderEvent> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public OrderEventPublisher(OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
     }
 
-    public void publishOrderCreated(long orderId, long customerId, List<OrderLineEvent> orderLines) {
+    public void publishOrderCreated(long orderId, UUID orderUuid, long customerId, List<OrderLineEvent> orderLines,
+            double totalPrice) {
         if (!kafkaEnabled) {
             log.debug("Kafka is disabled, skipping event publish for order: {}", orderId);
             return;
         }
-        
+
         OrderEvent event = new OrderEvent(orderId, customerId, orderLines, EventType.ORDER_CREATED);
-        sendEvent(event);
+        event.setOrderUuid(orderUuid);
+        event.setTotalPrice(totalPrice);
+        store(event);
     }
 
-    public void publishOrderDeleted(long orderId) {
+    public void publishOrderDeleted(long orderId, UUID orderUuid, long customerId, List<OrderLineEvent> orderLines) {
         if (!kafkaEnabled) {
             log.debug("Kafka is disabled, skipping event publish for deleted order: {}", orderId);
             return;
         }
-        
-        OrderEvent event = new OrderEvent(orderId, null, null, EventType.ORDER_DELETED);
-        sendEvent(event);
+
+        OrderEvent event = new OrderEvent(orderId, customerId, orderLines, EventType.ORDER_DELETED);
+        event.setOrderUuid(orderUuid);
+        store(event);
     }
 
-    private void sendEvent(OrderEvent event) {
+    // Order ids are only unique within this instance, the consumers tell the
+    // events apart by the event id
+    private void store(OrderEvent event) {
+        event.setEventId(UUID.randomUUID());
+        String payload;
         try {
-            ListenableFuture<SendResult<String, OrderEvent>> future = 
-                kafkaTemplate.send(orderEventsTopic, String.valueOf(event.getOrderId()), event);
-            
-            future.addCallback(new ListenableFutureCallback<SendResult<String, OrderEvent>>() {
-                @Override
-                public void onSuccess(SendResult<String, OrderEvent> result) {
-                    log.info("Order event sent successfully: orderId={}, type={}, partition={}, offset={}",
-                            event.getOrderId(), event.getEventType(),
-                            result.getRecordMetadata().partition(),
-                            result.getRecordMetadata().offset());
-                }
-
-                @Override
-                public void onFailure(Throwable ex) {
-                    log.error("Failed to send order event: orderId={}, type={}, error={}",
-                            event.getOrderId(), event.getEventType(), ex.getMessage());
-                }
-            });
-        } catch (Exception e) {
-            log.error("Exception while sending order event: orderId={}, error={}", 
-                    event.getOrderId(), e.getMessage());
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Order event cannot be serialized: orderId=" + event.getOrderId(), e);
         }
+        outboxRepository.save(new OutboxEvent(orderEventsTopic, String.valueOf(event.getOrderId()), payload));
+        log.debug("Order event stored in outbox: orderId={}, type={}", event.getOrderId(), event.getEventType());
     }
 }
@@ -0,0 +1,14 @@
+package com.ewolff.microservice.order.events;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Writes order events in the binary format of {@link OrderEventCodec}.
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent data) {
+        return data == null ? null : OrderEventCodec.encode(data);
+    }
+}
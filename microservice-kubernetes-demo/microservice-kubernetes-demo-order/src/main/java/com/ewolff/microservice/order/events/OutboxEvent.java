@@ -0,0 +1,70 @@
+package com.ewolff.microservice.order.events;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.ewolff.microservice.order.config.PooledSequenceGenerator;
+
+/**
+ * An event waiting to be sent to Kafka. It is written in the same transaction
+ * as the change it describes and marked as sent by the {@link OutboxRelay}.
+ */
+@Entity
+@Table(name = "OUTBOX", indexes = @Index(columnList = "sentAt"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = "outboxIdGenerator")
+    @GenericGenerator(name = "outboxIdGenerator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "OUTBOX_SEQ"))
+    private long id;
+
+    private String topic;
+
+    private String messageKey;
+
+    @Column(length = 65535)
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public String getMessageKey() { return messageKey; }
+    public void setMessageKey(String messageKey) { this.messageKey = messageKey; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
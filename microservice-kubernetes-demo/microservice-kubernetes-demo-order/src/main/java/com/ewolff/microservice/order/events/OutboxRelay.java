@@ -0,0 +1,117 @@
+package com.ewolff.microservice.order.events;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends the events from the outbox to Kafka. Unsent rows are read in batches
+ * in id order, all sends of a batch are flushed together and the rows that
+ * were acknowledged are marked as sent. Sending stops at the first failure so
+ * events of one order are not reordered; the rest is retried with the next
+ * run. Events may therefore be delivered more than once.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.relay.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout:10000}")
+    private long sendTimeout;
+
+    @Value("${outbox.relay.retention:86400000}")
+    private long retention;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, KafkaTemplate<String, OrderEvent> kafkaTemplate,
+            ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // The linger is the pause between runs: events written meanwhile are sent as one batch
+    @Scheduled(fixedDelayString = "${outbox.relay.linger:200}")
+    public void relay() {
+        int sent;
+        do {
+            sent = relayBatch();
+        } while (sent == batchSize);
+    }
+
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxRepository.findBySentAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<ListenableFuture<SendResult<String, OrderEvent>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            try {
+                OrderEvent event = objectMapper.readValue(outboxEvent.getPayload(), OrderEvent.class);
+                futures.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), event));
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to send outbox event: id={}, error={}", outboxEvent.getId(), e.getMessage());
+                break;
+            }
+        }
+        kafkaTemplate.flush();
+
+        List<Long> sentIds = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(sendTimeout, TimeUnit.MILLISECONDS);
+                sentIds.add(batch.get(i).getId());
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Failed to send outbox event: id={}, error={}", batch.get(i).getId(), e.getMessage());
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, LocalDateTime.now());
+            log.debug("Sent {} outbox events", sentIds.size());
+        }
+        return sentIds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.purge-interval:3600000}")
+    public void purge() {
+        int deleted = outboxRepository.deleteSentBefore(LocalDateTime.now().minus(Duration.ofMillis(retention)));
+        if (deleted > 0) {
+            log.info("Purged {} sent outbox events", deleted);
+        }
+    }
+}
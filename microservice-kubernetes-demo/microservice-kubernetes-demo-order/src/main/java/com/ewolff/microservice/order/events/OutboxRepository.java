@@ -0,0 +1,30 @@
+package com.ewolff.microservice.order.events;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+@RepositoryRestResource(exported = false)
+public interface OutboxRepository extends CrudRepository<OutboxEvent, Long> {
+
+	List<OutboxEvent> findBySentAtIsNullOrderByIdAsc(Pageable pageable);
+
+	@Modifying
+	@Transactional
+	@Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+	int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+	@Modifying
+	@Transactional
+	@Query("delete from OutboxEvent e where e.sentAt < :sentBefore")
+	int deleteSentBefore(@Param("sentBefore") LocalDateTime sentBefore);
+
+}
@@ -2,8 +2,13 @@ package com.ewolff.microservice.order.logic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -13,22 +18,36 @@ import javax.persistence.Table;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
-import com.ewolff.microservice.order.clients.CatalogClient;
+import com.ewolff.microservice.order.config.PooledSequenceGenerator;
+import com.ewolff.microservice.order.clients.CatalogUnavailableException;
+import com.ewolff.microservice.order.clients.Item;
 
 @Entity
 @Table(name = "ORDERTABLE")
 class Order {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "orderIdGenerator")
+	@GenericGenerator(name = "orderIdGenerator", strategy = PooledSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = "sequence_name", value = "ORDER_SEQ"))
 	private long id;
 
+	// The ids come from the sequence of one instance and are only unique
+	// there; the events identify the order by this id instead
+	@Column(nullable = false, updatable = false)
+	private UUID uuid = UUID.randomUUID();
+
 	private long customerId;
 
 	@OneToMany(cascade = CascadeType.ALL)
 	private List<OrderLine> orderLine;
 
+	// Sum of the line prices, fixed when the order is placed
+	private double totalPrice;
+
 	public Order() {
 		super();
 		orderLine = new ArrayList<OrderLine>();
@@ -42,6 +61,10 @@ class Order {
 		return id;
 	}
 
+	public UUID getUuid() {
+		return uuid;
+	}
+
 	public long getCustomerId() {
 		return customerId;
 	}
@@ -72,10 +95,33 @@ class Order {
 		return orderLine.size();
 	}
 
-	public double totalPrice(CatalogClient itemClient) {
-		return orderLine.stream()
-				.map((ol) -> ol.getCount() * itemClient.price(ol.getItemId()))
-				.reduce(0.0, (d1, d2) -> d1 + d2);
+	public Set<Long> itemIds() {
+		return orderLine.stream().map(OrderLine::getItemId).collect(Collectors.toSet());
+	}
+
+	public double getTotalPrice() {
+		return totalPrice;
+	}
+
+	/**
+	 * Stores the current price of each line's item with the line and the sum
+	 * with the order, so the order keeps the prices it was placed with.
+	 * Placeholders for items the catalog could not be asked about have no
+	 * price, an order with one of them is refused rather than priced at zero.
+	 */
+	public void price(Map<Long, Item> items) {
+		totalPrice = 0.0;
+		for (OrderLine line : orderLine) {
+			Item item = items.get(line.getItemId());
+			if (item == null) {
+				throw new IllegalArgumentException("Item " + line.getItemId() + " does not exist!");
+			}
+			if (item.isUnavailable()) {
+				throw new CatalogUnavailableException("Catalog unavailable, cannot price item " + line.getItemId());
+			}
+			line.setUnitPrice(item.getPrice());
+			totalPrice += line.getCount() * item.getPrice();
+		}
 	}
 
 	public void setCustomer(long customerId) {
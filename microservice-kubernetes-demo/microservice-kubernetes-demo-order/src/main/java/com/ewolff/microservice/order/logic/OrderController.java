@@ -1,14 +1,25 @@
 package com.ewolff.microservice.order.logic;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.thymeleaf.context.LazyContextVariable;
 
 import com.ewolff.microservice.order.clients.CatalogClient;
 import com.ewolff.microservice.order.clients.Customer;
@@ -22,34 +33,81 @@ class OrderController {
 
 	private OrderService orderService;
 
+	private OrderSummaryAssembler orderSummaryAssembler;
+
+	private OrderExporter orderExporter;
+
+	@Value("${order.list.page-size:20}")
+	private int defaultPageSize;
+
+	@Value("${order.list.max-page-size:100}")
+	private int maxPageSize;
+
 	private CustomerClient customerClient;
 	private CatalogClient catalogClient;
 
 	@Autowired
 	private OrderController(OrderService orderService,
 			OrderRepository orderRepository, CustomerClient customerClient,
-			CatalogClient catalogClient) {
+			CatalogClient catalogClient, OrderSummaryAssembler orderSummaryAssembler,
+			OrderExporter orderExporter) {
 		super();
 		this.orderRepository = orderRepository;
 		this.customerClient = customerClient;
 		this.catalogClient = catalogClient;
 		this.orderService = orderService;
+		this.orderSummaryAssembler = orderSummaryAssembler;
+		this.orderExporter = orderExporter;
 	}
 
+	// Both lists are only loaded when a template actually renders them, so
+	// views other than the order form do not fetch them
+
 	@ModelAttribute("items")
-	public Collection<Item> items() {
-		return catalogClient.findAll();
+	public LazyContextVariable<Collection<Item>> items() {
+		return new LazyContextVariable<Collection<Item>>() {
+			@Override
+			protected Collection<Item> loadValue() {
+				return catalogClient.findAll();
+			}
+		};
 	}
 
 	@ModelAttribute("customers")
-	public Collection<Customer> customers() {
-		return customerClient.findAll();
+	public LazyContextVariable<Collection<Customer>> customers() {
+		return new LazyContextVariable<Collection<Customer>>() {
+			@Override
+			protected Collection<Customer> loadValue() {
+				return customerClient.findAll();
+			}
+		};
 	}
 
+	// One page of orders with ids greater than after. One more order than the
+	// page size is read to find out whether there is a next page.
 	@RequestMapping("/")
-	public ModelAndView orderList() {
-		return new ModelAndView("orderlist", "orders",
-				orderRepository.findAll());
+	public ModelAndView orderList(@RequestParam(name = "after", defaultValue = "0") long after,
+			@RequestParam(name = "size", required = false) Integer size) {
+		int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+		List<Order> orders = orderRepository.findPageAfter(after, PageRequest.of(0, pageSize + 1));
+		boolean hasNext = orders.size() > pageSize;
+		if (hasNext) {
+			orders = orders.subList(0, pageSize);
+		}
+		ModelAndView modelAndView = new ModelAndView("orderlist", "orders", orderSummaryAssembler.summarize(orders));
+		modelAndView.addObject("size", pageSize);
+		modelAndView.addObject("first", after == 0);
+		if (hasNext) {
+			modelAndView.addObject("nextAfter", orders.get(orders.size() - 1).getId());
+		}
+		return modelAndView;
+	}
+
+	@RequestMapping(value = "/export", method = RequestMethod.GET, produces = OrderExporter.NDJSON)
+	public void export(HttpServletResponse response) throws IOException {
+		response.setContentType(OrderExporter.NDJSON);
+		orderExporter.export(response.getOutputStream());
+		response.flushBuffer();
 	}
 
 	@RequestMapping(value = "/form.html", method = RequestMethod.GET)
@@ -65,13 +123,18 @@ class OrderController {
 
 	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
 	public ModelAndView get(@PathVariable("id") long id) {
-		return new ModelAndView("order", "order", orderRepository.findById(id).get());
+		Order order = orderRepository.findWithLinesById(id).get();
+		ModelAndView modelAndView = new ModelAndView("order", "order", order);
+		Map<Long, Item> lineItems = new HashMap<>(catalogClient.getMany(order.itemIds()));
+		// Items deleted from the catalog since the order was placed are shown as unavailable
+		order.itemIds().forEach(itemId -> lineItems.computeIfAbsent(itemId, Item::unavailable));
+		modelAndView.addObject("lineItems", lineItems);
+		return modelAndView;
 	}
 
 	@RequestMapping(value = "/", method = RequestMethod.POST)
-	public ModelAndView post(Order order) {
-		order = orderService.order(order);
-		return new ModelAndView("success");
+	public CompletableFuture<ModelAndView> post(Order order) {
+		return orderService.orderAsync(order).thenApply(savedOrder -> new ModelAndView("success"));
 	}
 
 	@RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
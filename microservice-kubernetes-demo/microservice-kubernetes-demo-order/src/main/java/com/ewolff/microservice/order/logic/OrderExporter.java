@@ -0,0 +1,84 @@
+package com.ewolff.microservice.order.logic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes all orders as newline delimited JSON, one order with its lines per
+ * line. The rows are streamed from the database and written as they arrive,
+ * so neither the orders nor the response are held in memory.
+ */
+@Component
+class OrderExporter {
+
+	static final String NDJSON = "application/x-ndjson";
+
+	private OrderRepository orderRepository;
+
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	OrderExporter(OrderRepository orderRepository, ObjectMapper objectMapper) {
+		super();
+		this.orderRepository = orderRepository;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Writes the orders to the stream without closing it and returns the
+	 * number of orders written.
+	 */
+	@Transactional(readOnly = true)
+	public long export(OutputStream out) throws IOException {
+		long orders = 0;
+		try (Stream<OrderLineRow> rows = orderRepository.streamAllLineRows();
+				JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+			json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			json.setRootValueSeparator(null);
+			long orderId = 0;
+			// The lines of one order are adjacent in the rows
+			for (Iterator<OrderLineRow> i = rows.iterator(); i.hasNext();) {
+				OrderLineRow row = i.next();
+				if (orders == 0 || row.getOrderId() != orderId) {
+					if (orders > 0) {
+						endOrder(json);
+					}
+					orderId = row.getOrderId();
+					orders++;
+					json.writeStartObject();
+					json.writeNumberField("id", orderId);
+					json.writeNumberField("customerId", row.getCustomerId());
+					json.writeNumberField("totalPrice", row.getTotalPrice());
+					json.writeArrayFieldStart("orderLine");
+				}
+				if (row.getItemId() != null) {
+					json.writeStartObject();
+					json.writeNumberField("itemId", row.getItemId());
+					json.writeNumberField("count", row.getCount());
+					json.writeNumberField("unitPrice", row.getUnitPrice());
+					json.writeEndObject();
+				}
+			}
+			if (orders > 0) {
+				endOrder(json);
+			}
+		}
+		return orders;
+	}
+
+	private void endOrder(JsonGenerator json) throws IOException {
+		json.writeEndArray();
+		json.writeEndObject();
+		json.writeRaw('\n');
+	}
+
+}
@@ -8,6 +8,10 @@ import javax.persistence.Id;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.ewolff.microservice.order.config.PooledSequenceGenerator;
 
 @Entity
 public class OrderLine {
@@ -17,8 +21,13 @@ public class OrderLine {
 
 	private long itemId;
 
+	// Price of one item when the order was placed
+	private double unitPrice;
+
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "orderLineIdGenerator")
+	@GenericGenerator(name = "orderLineIdGenerator", strategy = PooledSequenceGenerator.STRATEGY,
+			parameters = @Parameter(name = "sequence_name", value = "ORDER_LINE_SEQ"))
 	private long id;
 
 	public void setCount(int count) {
@@ -45,6 +54,18 @@ public class OrderLine {
 		return itemId;
 	}
 
+	public double getUnitPrice() {
+		return unitPrice;
+	}
+
+	public void setUnitPrice(double unitPrice) {
+		this.unitPrice = unitPrice;
+	}
+
+	public long getId() {
+		return id;
+	}
+
 	@Override
 	public String toString() {
 		return ToStringBuilder.reflectionToString(this);
@@ -0,0 +1,63 @@
+package com.ewolff.microservice.order.logic;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * One order line together with its order, read by a single query without
+ * loading the entities. An order without lines has one row with no item.
+ */
+public class OrderLineRow {
+
+	private final long orderId;
+
+	private final long customerId;
+
+	private final double totalPrice;
+
+	private final Long itemId;
+
+	private final int count;
+
+	private final double unitPrice;
+
+	public OrderLineRow(long orderId, long customerId, double totalPrice, Long itemId, Integer count,
+			Double unitPrice) {
+		super();
+		this.orderId = orderId;
+		this.customerId = customerId;
+		this.totalPrice = totalPrice;
+		this.itemId = itemId;
+		this.count = count != null ? count : 0;
+		this.unitPrice = unitPrice != null ? unitPrice : 0.0;
+	}
+
+	public long getOrderId() {
+		return orderId;
+	}
+
+	public long getCustomerId() {
+		return customerId;
+	}
+
+	public double getTotalPrice() {
+		return totalPrice;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getUnitPrice() {
+		return unitPrice;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+
+}
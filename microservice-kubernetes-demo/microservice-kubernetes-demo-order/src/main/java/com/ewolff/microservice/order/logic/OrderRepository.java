@@ -1,9 +1,40 @@
 package com.ewolff.microservice.order.logic;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
 @RepositoryRestResource(collectionResourceRel = "order", path = "order")
 interface OrderRepository extends PagingAndSortingRepository<Order, Long> {
 
+	// The lines are lazy: this loads them with the order in one statement
+	@RestResource(exported = false)
+	@EntityGraph(attributePaths = "orderLine")
+	Optional<Order> findWithLinesById(long id);
+
+	// Keyset pagination for the order list: a page starts after the last id
+	// of the previous page, so no page needs an offset scan. The list shows
+	// the stored totals, so the lines are not loaded.
+	@RestResource(exported = false)
+	@Query("select o from Order o where o.id > :after order by o.id")
+	List<Order> findPageAfter(long after, Pageable pageable);
+
+	// Read in chunks of the fetch size; the stream has to be consumed inside a
+	// transaction and closed afterwards
+	@RestResource(exported = false)
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select new com.ewolff.microservice.order.logic.OrderLineRow(o.id, o.customerId, o.totalPrice, "
+			+ "l.itemId, l.count, l.unitPrice) from Order o left join o.orderLine l order by o.id, l.id")
+	Stream<OrderLineRow> streamAllLineRows();
+
 }
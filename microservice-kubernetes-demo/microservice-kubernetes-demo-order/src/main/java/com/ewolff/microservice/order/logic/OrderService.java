@@ -1,12 +1,19 @@
 package com.ewolff.microservice.order.logic;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.ewolff.microservice.order.clients.CatalogClient;
 import com.ewolff.microservice.order.clients.CustomerClient;
+import com.ewolff.microservice.order.clients.Item;
 import com.ewolff.microservice.order.events.OrderEventPublisher;
 import com.ewolff.microservice.order.events.OrderEvent.OrderLineEvent;
 
@@ -17,16 +24,19 @@ class OrderService {
 	private CustomerClient customerClient;
 	private CatalogClient itemClient;
 	private OrderEventPublisher orderEventPublisher;
+	private TransactionTemplate transactionTemplate;
 
 	@Autowired
 	private OrderService(OrderRepository orderRepository,
 			CustomerClient customerClient, CatalogClient itemClient,
-			@Autowired(required = false) OrderEventPublisher orderEventPublisher) {
+			@Autowired(required = false) OrderEventPublisher orderEventPublisher,
+			PlatformTransactionManager transactionManager) {
 		super();
 		this.orderRepository = orderRepository;
 		this.customerClient = customerClient;
 		this.itemClient = itemClient;
 		this.orderEventPublisher = orderEventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	public Order order(Order order) {
@@ -36,32 +46,76 @@ class OrderService {
 		if (!customerClient.isValidCustomerId(order.getCustomerId())) {
 			throw new IllegalArgumentException("Customer does not exist!");
 		}
-		Order savedOrder = orderRepository.save(order);
-		
-		// Publish order created event
-		if (orderEventPublisher != null) {
-			orderEventPublisher.publishOrderCreated(
-				savedOrder.getId(),
-				savedOrder.getCustomerId(),
-				savedOrder.getOrderLine().stream()
-					.map(line -> new OrderLineEvent(line.getItemId(), line.getCount()))
-					.collect(Collectors.toList())
-			);
+		// Usually from the items cache; pricing refuses unknown items
+		return save(order, itemClient.getMany(order.itemIds()));
+	}
+
+	/**
+	 * Places an order without blocking the calling thread. The customer is
+	 * validated while the line items are fetched into the item cache; both
+	 * calls are bounded by the time limiters of the clients.
+	 */
+	public CompletableFuture<Order> orderAsync(Order order) {
+		if (order.getNumberOfLines() == 0) {
+			return CompletableFuture.failedFuture(new IllegalArgumentException("No order lines!"));
 		}
-		
-		return savedOrder;
+		CompletableFuture<Boolean> validCustomer = customerClient.isValidCustomerIdAsync(order.getCustomerId());
+		CompletableFuture<Map<Long, Item>> items = itemClient.getManyAsync(order.itemIds());
+		return validCustomer.thenCombine(items, (valid, prefetchedItems) -> {
+			if (!valid) {
+				throw new IllegalArgumentException("Customer does not exist!");
+			}
+			return save(order, prefetchedItems);
+		});
+	}
+
+	// The order and its event are committed together, the event is sent
+	// from the outbox later. This also runs on the threads of orderAsync,
+	// so the transaction is demarcated here and not with @Transactional.
+	private Order save(Order order, Map<Long, Item> items) {
+		// Refuses items the catalog does not know and placeholders of an
+		// unavailable catalog. The prices are stored with the order, views of
+		// the order do not ask the catalog for prices again
+		order.price(items);
+		return transactionTemplate.execute(status -> {
+			Order savedOrder = orderRepository.save(order);
+
+			// Publish order created event
+			if (orderEventPublisher != null) {
+				orderEventPublisher.publishOrderCreated(
+					savedOrder.getId(),
+					savedOrder.getUuid(),
+					savedOrder.getCustomerId(),
+					orderLineEvents(savedOrder),
+					savedOrder.getTotalPrice()
+				);
+			}
+
+			return savedOrder;
+		});
 	}
 
 	public double getPrice(long orderId) {
-		return orderRepository.findById(orderId).get().totalPrice(itemClient);
+		return orderRepository.findById(orderId).get().getTotalPrice();
 	}
 	
 	public void deleteOrder(long orderId) {
-		orderRepository.deleteById(orderId);
-		// Publish order deleted event
-		if (orderEventPublisher != null) {
-			orderEventPublisher.publishOrderDeleted(orderId);
-		}
+		transactionTemplate.executeWithoutResult(status -> {
+			Order order = orderRepository.findWithLinesById(orderId).orElseThrow(
+					() -> new EmptyResultDataAccessException("No order with id " + orderId, 1));
+			orderRepository.delete(order);
+			// The event carries the lines, so the catalog can release the reserved stock
+			if (orderEventPublisher != null) {
+				orderEventPublisher.publishOrderDeleted(orderId, order.getUuid(), order.getCustomerId(),
+						orderLineEvents(order));
+			}
+		});
+	}
+
+	private List<OrderLineEvent> orderLineEvents(Order order) {
+		return order.getOrderLine().stream()
+				.map(line -> new OrderLineEvent(line.getItemId(), line.getCount()))
+				.collect(Collectors.toList());
 	}
 
 }
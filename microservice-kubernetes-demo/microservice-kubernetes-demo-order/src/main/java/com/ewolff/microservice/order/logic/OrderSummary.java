@@ -0,0 +1,41 @@
+package com.ewolff.microservice.order.logic;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Read-only row of the order list. Customer name and total price are resolved
+ * before rendering so the template does not call the remote clients per row.
+ */
+public class OrderSummary {
+
+	private final long id;
+
+	private final String customerName;
+
+	private final double totalPrice;
+
+	public OrderSummary(long id, String customerName, double totalPrice) {
+		super();
+		this.id = id;
+		this.customerName = customerName;
+		this.totalPrice = totalPrice;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public double getTotalPrice() {
+		return totalPrice;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+
+}
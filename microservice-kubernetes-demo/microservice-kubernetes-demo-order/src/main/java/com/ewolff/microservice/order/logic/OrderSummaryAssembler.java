@@ -0,0 +1,61 @@
+package com.ewolff.microservice.order.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.ewolff.microservice.order.clients.Customer;
+import com.ewolff.microservice.order.clients.CustomerClient;
+
+/**
+ * Builds the view model for the order list. The totals are stored with the
+ * orders; each customer on a page is looked up once, through the cached
+ * lookup by id, instead of once per row or with the full customer list.
+ */
+@Component
+class OrderSummaryAssembler {
+
+	private CustomerClient customerClient;
+
+	@Autowired
+	OrderSummaryAssembler(CustomerClient customerClient) {
+		super();
+		this.customerClient = customerClient;
+	}
+
+	public List<OrderSummary> summarize(List<Order> orders) {
+		Set<Long> customerIds = new HashSet<>();
+		for (Order order : orders) {
+			customerIds.add(order.getCustomerId());
+		}
+
+		Map<Long, String> customerNames = customerNames(customerIds);
+
+		List<OrderSummary> summaries = new ArrayList<>();
+		for (Order order : orders) {
+			summaries.add(new OrderSummary(order.getId(), customerNames.get(order.getCustomerId()),
+					order.getTotalPrice()));
+		}
+		return summaries;
+	}
+
+	private Map<Long, String> customerNames(Set<Long> customerIds) {
+		Map<Long, String> names = new HashMap<>();
+		for (Long customerId : customerIds) {
+			Customer customer = customerClient.getOne(customerId);
+			names.put(customerId, customer != null ? name(customer) : "Unknown Customer");
+		}
+		return names;
+	}
+
+	private String name(Customer customer) {
+		return customer.getFirstname() + " " + customer.getName();
+	}
+
+}
@@ -1,8 +1,11 @@
 package com.ewolff.microservice.order.catalogstub;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 import org.springframework.context.annotation.Profile;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.PagedModel.PageMetadata;
 import org.springframework.http.HttpStatus;
@@ -10,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ewolff.microservice.order.clients.Item;
@@ -19,8 +23,14 @@ import com.ewolff.microservice.order.clients.Item;
 @Profile("test")
 public class CatalogStub {
 
+	// Requests for this item fail as if the catalog were down
+	public static final long UNAVAILABLE_ITEM_ID = 2;
+
 	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
 	public ResponseEntity<Item> getById(@PathVariable("id") long id) {
+		if (id == UNAVAILABLE_ITEM_ID) {
+			return new ResponseEntity<Item>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
 		if (id != 1) {
 			return new ResponseEntity<Item>(HttpStatus.NOT_FOUND);
 		}
@@ -35,4 +45,17 @@ public class CatalogStub {
 						0, 1));
 	}
 
+	@RequestMapping(value = "/search/findByIdIn", method = RequestMethod.GET)
+	public ResponseEntity<CollectionModel<Item>> getByIds(@RequestParam("ids") Collection<Long> ids) {
+		if (ids.contains(UNAVAILABLE_ITEM_ID)) {
+			return new ResponseEntity<CollectionModel<Item>>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		if (!ids.contains(1L)) {
+			return new ResponseEntity<CollectionModel<Item>>(
+					new CollectionModel<Item>(Collections.<Item>emptyList()), HttpStatus.OK);
+		}
+		return new ResponseEntity<CollectionModel<Item>>(
+				new CollectionModel<Item>(Arrays.asList(new Item(1, "iPod", 42.0))), HttpStatus.OK);
+	}
+
 }
@@ -0,0 +1,96 @@
+package com.ewolff.microservice.order.clients;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+public class CustomerValidityCacheTest {
+
+	private RedisTemplate<String, Object> redisTemplate;
+
+	private ValueOperations<String, Object> valueOperations;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		redisTemplate = mock(RedisTemplate.class);
+		valueOperations = mock(ValueOperations.class);
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+	}
+
+	@Test
+	public void IsLoaderCalledOnlyOnMiss() {
+		CustomerValidityCache cache = new CustomerValidityCache(redisTemplate, 60000, 60000, 100);
+		AtomicInteger calls = new AtomicInteger();
+		assertTrue(cache.get(42, id -> calls.incrementAndGet() > 0));
+		assertTrue(cache.get(42, id -> calls.incrementAndGet() > 0));
+		assertEquals(1, calls.get());
+		verify(valueOperations).set("customerValidity::42", true, Duration.ofMillis(60000));
+	}
+
+	@Test
+	public void AreInvalidIdsExpiredSeparately() throws Exception {
+		CustomerValidityCache cache = new CustomerValidityCache(redisTemplate, 60000, 1, 100);
+		cache.put(1, true);
+		cache.put(2, false);
+		Thread.sleep(5);
+		assertEquals(Boolean.TRUE, cache.getIfPresent(1));
+		assertNull(cache.getIfPresent(2));
+		verify(valueOperations).set("customerValidity::2", false, Duration.ofMillis(1));
+	}
+
+	@Test
+	public void AreHotIdsKeptWhenFull() {
+		CustomerValidityCache cache = new CustomerValidityCache(redisTemplate, 60000, 60000, 100);
+		cache.put(1, true);
+		for (long id = 2; id <= 1000; id++) {
+			cache.getIfPresent(1);
+			cache.put(id, true);
+		}
+		assertEquals(Boolean.TRUE, cache.getIfPresent(1));
+	}
+
+	@Test
+	public void DoConcurrentLookupsShareOneLoad() throws Exception {
+		CustomerValidityCache cache = new CustomerValidityCache(redisTemplate, 60000, 60000, 100);
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Boolean> first = executor.submit(() -> cache.get(7, id -> {
+				calls.incrementAndGet();
+				try {
+					return release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+			while (calls.get() == 0) {
+				Thread.sleep(1);
+			}
+			Future<Boolean> second = executor.submit(() -> cache.get(7, id -> calls.incrementAndGet() > 0));
+			Thread.sleep(50);
+			release.countDown();
+			assertTrue(first.get(5, TimeUnit.SECONDS));
+			assertTrue(second.get(5, TimeUnit.SECONDS));
+			assertEquals(1, calls.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.ewolff.microservice.order.config;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+public class RefreshAheadCacheTest {
+
+	private List<Runnable> refreshes;
+
+	private ConcurrentMapCache target;
+
+	@Before
+	public void setup() {
+		refreshes = new ArrayList<>();
+		target = new ConcurrentMapCache("itemsList", false);
+	}
+
+	@Test
+	public void IsMissingEntryLoaded() {
+		RefreshAheadCache cache = new RefreshAheadCache(target, 60000, refreshes::add);
+		AtomicInteger loads = new AtomicInteger();
+		assertEquals("v1", cache.get("all", () -> "v" + loads.incrementAndGet()));
+		assertEquals("v1", cache.get("all", () -> "v" + loads.incrementAndGet()));
+		assertEquals(1, loads.get());
+		assertTrue(refreshes.isEmpty());
+	}
+
+	@Test
+	public void IsStaleEntryServedWhileRefreshing() {
+		RefreshAheadCache cache = new RefreshAheadCache(target, 0, refreshes::add);
+		cache.put("all", "old");
+		assertEquals("old", cache.get("all", () -> "new"));
+		assertEquals("old", cache.get("all", () -> "new"));
+		// Only one refresh is started for both reads
+		assertEquals(1, refreshes.size());
+		refreshes.get(0).run();
+		assertEquals("new", cache.get("all", String.class));
+	}
+
+	@Test
+	public void IsFailedRefreshKeepingOldValue() {
+		RefreshAheadCache cache = new RefreshAheadCache(target, 0, refreshes::add);
+		cache.put("all", "old");
+		cache.get("all", () -> {
+			throw new IllegalStateException("catalog down");
+		});
+		refreshes.get(0).run();
+		assertEquals("old", cache.get("all", String.class));
+	}
+
+	@Test(expected = ValueRetrievalException.class)
+	public void IsFailedLoadPropagated() {
+		RefreshAheadCache cache = new RefreshAheadCache(target, 60000, refreshes::add);
+		cache.get("all", () -> {
+			throw new IllegalStateException("catalog down");
+		});
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.ewolff.microservice.order.config;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TwoLevelCacheTest {
+
+	private ConcurrentMapCache remote;
+
+	private TwoLevelCache cache;
+
+	@Before
+	public void setup() {
+		remote = new ConcurrentMapCache("items", false);
+		cache = new TwoLevelCache(Caffeine.newBuilder().maximumSize(10).build(), remote);
+	}
+
+	@Test
+	public void IsRemoteHitKeptLocally() {
+		remote.put(1L, "Torspray");
+		assertEquals("Torspray", cache.get(1L, String.class));
+		remote.evict(1L);
+		assertEquals("Torspray", cache.get(1L, String.class));
+	}
+
+	@Test
+	public void IsPutWrittenToBothTiers() {
+		cache.put(2L, "iPod");
+		assertEquals("iPod", remote.get(2L).get());
+		assertEquals("iPod", cache.get(2L).get());
+	}
+
+	@Test
+	public void IsEvictAppliedToBothTiers() {
+		cache.put(3L, "iPod nano");
+		cache.evict(3L);
+		assertNull(remote.get(3L));
+		assertNull(cache.get(3L));
+	}
+
+	@Test
+	public void IsLoaderUsedOnlyOnMiss() {
+		assertEquals("Kindle", cache.get(4L, () -> "Kindle"));
+		assertEquals("Kindle", cache.get(4L, () -> "other"));
+		assertEquals("Kindle", remote.get(4L).get());
+	}
+
+	@Test
+	public void AreLocalTierStatisticsExported() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(new ConcurrentMapCacheManager("items"),
+				new MockEnvironment(), Runnable::run, registry);
+		cacheManager.getCache("items").put(5L, "iPod touch");
+		cacheManager.getCache("items").get(5L);
+		assertEquals(1.0, registry.get("cache.gets").tags("cache", "items", "tier", "local", "result", "hit")
+				.functionCounter().count(), 0.0);
+	}
+
+}
@@ -30,6 +30,14 @@ public class CustomerStub {
 				"Berlin"), HttpStatus.OK);
 	}
 
+	@RequestMapping(value = "/{id}/exists", method = { RequestMethod.HEAD, RequestMethod.GET })
+	public ResponseEntity<Void> exists(@PathVariable("id") long id) {
+		if (id != 42) {
+			return new ResponseEntity<Void>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<Void>(HttpStatus.OK);
+	}
+
 	@RequestMapping(method = RequestMethod.GET)
 	public PagedModel<Customer> getAll() {
 		return new PagedModel<Customer>(Arrays.asList(new Customer(42,
@@ -0,0 +1,56 @@
+package com.ewolff.microservice.order.events;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.ewolff.microservice.order.clients.CustomerValidityCache;
+
+public class CacheInvalidationListenerTest {
+
+	private ConcurrentMapCacheManager cacheManager;
+
+	private RedisTemplate<String, Object> redisTemplate;
+
+	private CustomerValidityCache customerValidityCache;
+
+	private CacheInvalidationListener listener;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		redisTemplate = mock(RedisTemplate.class);
+		when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+		cacheManager = new ConcurrentMapCacheManager("items", "itemsList", "customers", "customersList");
+		customerValidityCache = new CustomerValidityCache(redisTemplate, 60000, 60000, 100);
+		listener = new CacheInvalidationListener(cacheManager, customerValidityCache);
+	}
+
+	@Test
+	public void IsOnlyChangedItemEvicted() {
+		cacheManager.getCache("items").put(1L, "iPod");
+		cacheManager.getCache("items").put(2L, "iPod touch");
+		cacheManager.getCache("itemsList").put(SimpleKey.EMPTY, "all");
+		listener.handleItemEvent(new ItemEvent(1L, ItemEvent.EventType.ITEM_UPDATED));
+		assertNull(cacheManager.getCache("items").get(1L));
+		assertNull(cacheManager.getCache("itemsList").get(SimpleKey.EMPTY));
+		assertNotNull(cacheManager.getCache("items").get(2L));
+	}
+
+	@Test
+	public void IsCustomerValidityEvictedOnDelete() {
+		customerValidityCache.put(42, true);
+		cacheManager.getCache("customers").put(42L, "Eberhard");
+		listener.handleCustomerEvent(new CustomerEvent(42L, CustomerEvent.EventType.CUSTOMER_DELETED));
+		assertNull(customerValidityCache.getIfPresent(42));
+		assertNull(cacheManager.getCache("customers").get(42L));
+		verify(redisTemplate).delete("customerValidity::42");
+	}
+
+}
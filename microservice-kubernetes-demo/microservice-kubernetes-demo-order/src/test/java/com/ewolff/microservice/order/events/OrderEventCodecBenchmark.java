@@ -0,0 +1,91 @@
+package com.ewolff.microservice.order.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Compares the binary order event codec with the JSON serializer used
+ * before. It is not run by the tests: start {@link #main(String[])} with the
+ * test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderEventCodecBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int lines;
+
+	private OrderEvent event;
+
+	private JsonSerializer<OrderEvent> jsonSerializer;
+
+	private JsonDeserializer<OrderEvent> jsonDeserializer;
+
+	private byte[] json;
+
+	private byte[] binary;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		event = OrderEventCodecTest.largeOrder(lines);
+		jsonSerializer = new JsonSerializer<>();
+		jsonSerializer.setAddTypeInfo(false);
+		jsonDeserializer = new JsonDeserializer<>(OrderEvent.class, false);
+		json = jsonSerializer.serialize("order-events", event);
+		binary = OrderEventCodec.encode(event);
+		System.out.printf("%n%d lines: json %d bytes, binary %d bytes%n", lines, json.length, binary.length);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jsonSerializer.close();
+		jsonDeserializer.close();
+	}
+
+	@Benchmark
+	public byte[] serializeJson() {
+		return jsonSerializer.serialize("order-events", event);
+	}
+
+	@Benchmark
+	public byte[] serializeBinary() {
+		return OrderEventCodec.encode(event);
+	}
+
+	@Benchmark
+	public OrderEvent deserializeJson() {
+		return jsonDeserializer.deserialize("order-events", json);
+	}
+
+	@Benchmark
+	public OrderEvent deserializeBinary() {
+		return OrderEventCodec.decode(binary);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OrderEventCodecBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
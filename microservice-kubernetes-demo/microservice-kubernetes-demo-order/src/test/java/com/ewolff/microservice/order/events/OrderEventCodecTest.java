@@ -0,0 +1,85 @@
+package com.ewolff.microservice.order.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import com.ewolff.microservice.order.events.OrderEvent.EventType;
+import com.ewolff.microservice.order.events.OrderEvent.OrderLineEvent;
+
+public class OrderEventCodecTest {
+
+	@Test
+	public void IsCreatedEventRoundTripped() {
+		OrderEvent event = new OrderEvent(4711L, 42L,
+				Arrays.asList(new OrderLineEvent(1L, 3), new OrderLineEvent(300000L, -2)), EventType.ORDER_CREATED);
+		OrderEvent decoded = OrderEventCodec.decode(OrderEventCodec.encode(event));
+		assertEquals(event.getOrderId(), decoded.getOrderId());
+		assertEquals(event.getCustomerId(), decoded.getCustomerId());
+		assertEquals(event.getEventType(), decoded.getEventType());
+		assertEquals(event.getTimestamp(), decoded.getTimestamp());
+		assertEquals(2, decoded.getOrderLines().size());
+		assertEquals(Long.valueOf(300000L), decoded.getOrderLines().get(1).getItemId());
+		assertEquals(-2, decoded.getOrderLines().get(1).getCount());
+		assertNull(decoded.getTotalPrice());
+	}
+
+	@Test
+	public void IsTotalPriceRoundTripped() {
+		OrderEvent event = largeOrder(3);
+		event.setTotalPrice(123.45);
+		assertEquals(Double.valueOf(123.45), OrderEventCodec.decode(OrderEventCodec.encode(event)).getTotalPrice());
+	}
+
+	@Test
+	public void AreEventAndOrderUuidsRoundTripped() {
+		OrderEvent event = largeOrder(3);
+		event.setEventId(UUID.randomUUID());
+		event.setOrderUuid(UUID.randomUUID());
+		OrderEvent decoded = OrderEventCodec.decode(OrderEventCodec.encode(event));
+		assertEquals(event.getEventId(), decoded.getEventId());
+		assertEquals(event.getOrderUuid(), decoded.getOrderUuid());
+	}
+
+	@Test
+	public void AreAbsentFieldsKeptAbsent() {
+		OrderEvent event = new OrderEvent(7L, null, null, EventType.ORDER_DELETED);
+		OrderEvent decoded = OrderEventCodec.decode(OrderEventCodec.encode(event));
+		assertEquals(Long.valueOf(7L), decoded.getOrderId());
+		assertNull(decoded.getCustomerId());
+		assertNull(decoded.getOrderLines());
+		assertEquals(EventType.ORDER_DELETED, decoded.getEventType());
+		assertNull(decoded.getEventId());
+	}
+
+	@Test
+	public void IsBinaryMuchSmallerThanJson() {
+		OrderEvent event = largeOrder(100);
+		byte[] binary = OrderEventCodec.encode(event);
+		try (JsonSerializer<OrderEvent> json = new JsonSerializer<>()) {
+			assertTrue(binary.length * 4 < json.serialize("order-events", event).length);
+		}
+	}
+
+	@Test(expected = SerializationException.class)
+	public void IsTruncatedEventRejected() {
+		byte[] binary = OrderEventCodec.encode(largeOrder(10));
+		OrderEventCodec.decode(Arrays.copyOf(binary, binary.length - 1));
+	}
+
+	static OrderEvent largeOrder(int lines) {
+		List<OrderLineEvent> orderLines = new ArrayList<>();
+		for (int i = 0; i < lines; i++) {
+			orderLines.add(new OrderLineEvent((long) i + 1, i % 5 + 1));
+		}
+		return new OrderEvent(123456L, 42L, orderLines, EventType.ORDER_CREATED);
+	}
+
+}
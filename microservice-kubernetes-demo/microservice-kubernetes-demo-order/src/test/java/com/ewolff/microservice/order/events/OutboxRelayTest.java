@@ -0,0 +1,81 @@
+package com.ewolff.microservice.order.events;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.ewolff.microservice.order.events.OrderEvent.EventType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+public class OutboxRelayTest {
+
+	private OutboxRepository outboxRepository;
+
+	private KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+	private ObjectMapper objectMapper;
+
+	private OutboxRelay outboxRelay;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		outboxRepository = mock(OutboxRepository.class);
+		kafkaTemplate = mock(KafkaTemplate.class);
+		objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		outboxRelay = new OutboxRelay(outboxRepository, kafkaTemplate, objectMapper);
+		ReflectionTestUtils.setField(outboxRelay, "batchSize", 10);
+		ReflectionTestUtils.setField(outboxRelay, "sendTimeout", 1000L);
+	}
+
+	@Test
+	public void AreSentEventsMarkedUpToFirstFailure() throws Exception {
+		when(outboxRepository.findBySentAtIsNullOrderByIdAsc(any()))
+				.thenReturn(Arrays.asList(outboxEvent(1), outboxEvent(2), outboxEvent(3)));
+		when(kafkaTemplate.send(eq("order-events"), anyString(), any(OrderEvent.class)))
+				.thenReturn(sent(), failed(), sent());
+
+		assertEquals(1, outboxRelay.relayBatch());
+		verify(kafkaTemplate).flush();
+		verify(outboxRepository).markSent(eq(Collections.singletonList(1L)), any());
+	}
+
+	@Test
+	public void IsEmptyOutboxNotSent() {
+		when(outboxRepository.findBySentAtIsNullOrderByIdAsc(any())).thenReturn(Collections.emptyList());
+		assertEquals(0, outboxRelay.relayBatch());
+		verifyNoInteractions(kafkaTemplate);
+	}
+
+	private OutboxEvent outboxEvent(long orderId) throws Exception {
+		OrderEvent event = new OrderEvent(orderId, 42L, Collections.emptyList(), EventType.ORDER_CREATED);
+		OutboxEvent outboxEvent = new OutboxEvent("order-events", Long.toString(orderId),
+				objectMapper.writeValueAsString(event));
+		outboxEvent.setId(orderId);
+		return outboxEvent;
+	}
+
+	private SettableListenableFuture<SendResult<String, OrderEvent>> sent() {
+		SettableListenableFuture<SendResult<String, OrderEvent>> future = new SettableListenableFuture<>();
+		future.set(null);
+		return future;
+	}
+
+	private SettableListenableFuture<SendResult<String, OrderEvent>> failed() {
+		SettableListenableFuture<SendResult<String, OrderEvent>> future = new SettableListenableFuture<>();
+		future.setException(new IllegalStateException("broker unavailable"));
+		return future;
+	}
+
+}
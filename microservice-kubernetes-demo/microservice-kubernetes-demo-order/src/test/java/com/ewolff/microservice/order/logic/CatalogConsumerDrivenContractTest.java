@@ -10,9 +10,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, classes = OrderApp.class)
@@ -41,4 +44,13 @@ public class CatalogConsumerDrivenContractTest {
 		assertEquals(id.longValue(), result.getItemId());
 	}
 
+	@Test
+	public void testGetMany() {
+		Collection<Item> allItems = catalogClient.findAll();
+		Long id = allItems.iterator().next().getItemId();
+		Map<Long, Item> result = catalogClient.getMany(Arrays.asList(id, -1L));
+		assertEquals(id.longValue(), result.get(id).getItemId());
+		assertFalse(result.containsKey(-1L));
+	}
+
 }
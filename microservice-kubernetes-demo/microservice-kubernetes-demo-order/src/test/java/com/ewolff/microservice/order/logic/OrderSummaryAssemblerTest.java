@@ -0,0 +1,59 @@
+package com.ewolff.microservice.order.logic;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ewolff.microservice.order.clients.Customer;
+import com.ewolff.microservice.order.clients.CustomerClient;
+
+public class OrderSummaryAssemblerTest {
+
+	private CustomerClient customerClient;
+
+	private OrderSummaryAssembler orderSummaryAssembler;
+
+	@Before
+	public void setup() {
+		customerClient = mock(CustomerClient.class);
+		when(customerClient.getOne(1L)).thenReturn(customer(1L, "Eberhard", "Wolff"));
+		when(customerClient.getOne(2L)).thenReturn(customer(2L, "Rod", "Johnson"));
+		orderSummaryAssembler = new OrderSummaryAssembler(customerClient);
+	}
+
+	@Test
+	public void IsEachCustomerOfPageLookedUpOnce() {
+		List<OrderSummary> summaries = orderSummaryAssembler
+				.summarize(Arrays.asList(new Order(1L), new Order(2L), new Order(1L)));
+		assertEquals(3, summaries.size());
+		assertEquals("Eberhard Wolff", summaries.get(0).getCustomerName());
+		assertEquals("Rod Johnson", summaries.get(1).getCustomerName());
+		assertEquals("Eberhard Wolff", summaries.get(2).getCustomerName());
+		verify(customerClient).getOne(1L);
+		verify(customerClient).getOne(2L);
+		verify(customerClient, never()).findAll();
+	}
+
+	@Test
+	public void IsUnknownCustomerNamedAsSuch() {
+		List<OrderSummary> summaries = orderSummaryAssembler.summarize(Arrays.asList(new Order(3L)));
+		assertEquals("Unknown Customer", summaries.get(0).getCustomerName());
+	}
+
+	@Test
+	public void IsEmptyPageSummarizedWithoutLookups() {
+		assertTrue(orderSummaryAssembler.summarize(Arrays.asList()).isEmpty());
+		verify(customerClient, never()).getOne(anyLong());
+	}
+
+	private Customer customer(long id, String firstname, String name) {
+		return new Customer(id, firstname, name, "", "", "");
+	}
+
+}
@@ -2,27 +2,43 @@ package com.ewolff.microservice.order.logic;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import com.ewolff.microservice.order.OrderApp;
+import com.ewolff.microservice.order.catalogstub.CatalogStub;
+import com.ewolff.microservice.order.clients.CatalogUnavailableException;
 import com.ewolff.microservice.order.clients.CatalogClient;
 import com.ewolff.microservice.order.clients.Customer;
 import com.ewolff.microservice.order.clients.CustomerClient;
 import com.ewolff.microservice.order.clients.Item;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, classes = OrderApp.class)
@@ -43,6 +59,15 @@ public class OrderWebIntegrationTest {
 	@Autowired
 	private OrderRepository orderRepository;
 
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	private Item item;
 
 	private Customer customer;
@@ -74,15 +99,140 @@ public class OrderWebIntegrationTest {
 		}
 	}
 
+	@Test
+	public void AreOrderLineIdsAllocatedInBlocks() {
+		try {
+			Order order = new Order(customer.getCustomerId());
+			for (int i = 1; i <= 3; i++) {
+				order.addLine(i, item.getItemId());
+			}
+			List<Long> ids = orderRepository.save(order).getOrderLine().stream().map(OrderLine::getId)
+					.collect(Collectors.toList());
+			assertEquals(ids.get(0) + 1, (long) ids.get(1));
+			assertEquals(ids.get(0) + 2, (long) ids.get(2));
+			// One sequence value stands for a whole block of ids
+			String nextValue = "select next value for ORDER_LINE_SEQ from (values(0))";
+			long first = jdbcTemplate.queryForObject(nextValue, Long.class);
+			long second = jdbcTemplate.queryForObject(nextValue, Long.class);
+			assertEquals(50, second - first);
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
+	@Test
+	public void AreOrdersLoadedWithTheirLinesInOneStatement() {
+		try {
+			long ordersBefore = orderRepository.count();
+			long id = 0;
+			for (int i = 0; i < 3; i++) {
+				Order order = new Order(customer.getCustomerId());
+				order.addLine(1, item.getItemId());
+				order.addLine(2, item.getItemId());
+				id = orderRepository.save(order).getId();
+			}
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+			statistics.clear();
+			Order order = orderRepository.findWithLinesById(id).get();
+			assertEquals(2, order.getOrderLine().size());
+			assertEquals(1, statistics.getPrepareStatementCount());
+
+			// A page of the order list is one statement, whatever its size
+			statistics.clear();
+			List<Order> page = orderRepository.findPageAfter(0, PageRequest.of(0, 100));
+			assertEquals(ordersBefore + 3, page.size());
+			assertEquals(1, statistics.getPrepareStatementCount());
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
+	@Test
+	public void IsPriceStoredWithOrder() {
+		try {
+			Order order = new Order(customer.getCustomerId());
+			order.addLine(2, item.getItemId());
+			order.addLine(3, item.getItemId());
+			long id = orderService.order(order).getId();
+			Order savedOrder = orderRepository.findWithLinesById(id).get();
+			assertEquals(item.getPrice(), savedOrder.getOrderLine().get(0).getUnitPrice(), 0.0);
+			assertEquals(5 * item.getPrice(), savedOrder.getTotalPrice(), 0.001);
+			assertEquals(5 * item.getPrice(), orderService.getPrice(id), 0.001);
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
+	@Test
+	public void IsOrderListPaged() {
+		try {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				Order order = new Order(customer.getCustomerId());
+				order.addLine(1, item.getItemId());
+				ids.add(orderRepository.save(order).getId());
+			}
+			long after = ids.get(0) - 1;
+			String firstPage = restTemplate.getForObject(orderURL() + "/?size=2&after=" + after, String.class);
+			assertTrue(firstPage.contains("after=" + ids.get(1)));
+			String lastPage = restTemplate.getForObject(orderURL() + "/?size=2&after=" + ids.get(1), String.class);
+			assertTrue(lastPage.contains(">" + ids.get(2) + "<"));
+			assertFalse(lastPage.contains(">" + ids.get(1) + "<"));
+			assertFalse(lastPage.contains("Next"));
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
+	@Test
+	public void AreOrdersExportedAsNdjson() throws Exception {
+		try {
+			for (int i = 1; i <= 3; i++) {
+				Order order = new Order(customer.getCustomerId());
+				order.addLine(i, item.getItemId());
+				order.addLine(i, item.getItemId());
+				orderRepository.save(order);
+			}
+			ResponseEntity<String> resultEntity = restTemplate.getForEntity(orderURL() + "/export", String.class);
+			assertEquals("application/x-ndjson", resultEntity.getHeaders().getContentType().toString());
+			String[] lines = resultEntity.getBody().split("\n");
+			assertEquals(orderRepository.count(), lines.length);
+			JsonNode last = new ObjectMapper().readTree(lines[lines.length - 1]);
+			assertEquals(customer.getCustomerId(), last.get("customerId").asLong());
+			assertEquals(2, last.get("orderLine").size());
+			assertEquals(3, last.get("orderLine").get(1).get("count").asInt());
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
 	private String orderURL() {
 		return "http://localhost:" + serverPort;
 	}
 
+	@Test
+	public void IsOrderWithDeletedItemDisplayed() {
+		try {
+			Order order = new Order(customer.getCustomerId());
+			order.addLine(1, item.getItemId());
+			order.addLine(2, -1L);
+			long id = orderRepository.save(order).getId();
+			ResponseEntity<String> resultEntity = restTemplate.getForEntity(orderURL() + "/" + id, String.class);
+			assertTrue(resultEntity.getStatusCode().is2xxSuccessful());
+			assertTrue(resultEntity.getBody().contains(item.getName()));
+			assertTrue(resultEntity.getBody().contains("Item Unavailable"));
+		} finally {
+			orderRepository.deleteAll();
+		}
+	}
+
 	@Test
 	public void IsOrderFormDisplayed() {
 		ResponseEntity<String> resultEntity = restTemplate.getForEntity(orderURL() + "/form.html", String.class);
 		assertTrue(resultEntity.getStatusCode().is2xxSuccessful());
 		assertTrue(resultEntity.getBody().contains("<form"));
+		assertTrue(resultEntity.getBody().contains("Eberhard Wolff"));
 	}
 
 	@Test
@@ -97,4 +247,73 @@ public class OrderWebIntegrationTest {
 		restTemplate.postForLocation(orderURL(), map, String.class);
 		assertEquals(before + 1, orderRepository.count());
 	}
+
+	@Test
+	public void IsOrderOfUnknownCustomerRejected() {
+		long before = orderRepository.count();
+		MultiValueMap<String, String> map = new LinkedMultiValueMap<String, String>();
+		map.add("submit", "");
+		map.add("customerId", "-1");
+		map.add("orderLine[0].itemId", Long.toString(item.getItemId()));
+		map.add("orderLine[0].count", "42");
+		try {
+			restTemplate.postForLocation(orderURL(), map, String.class);
+			fail("Order of unknown customer was accepted");
+		} catch (HttpServerErrorException e) {
+			assertEquals(before, orderRepository.count());
+		}
+	}
+
+	@Test
+	public void IsOrderWithUnknownItemRejected() {
+		long before = orderRepository.count();
+		MultiValueMap<String, String> map = new LinkedMultiValueMap<String, String>();
+		map.add("submit", "");
+		map.add("customerId", Long.toString(customer.getCustomerId()));
+		map.add("orderLine[0].itemId", "-1");
+		map.add("orderLine[0].count", "42");
+		try {
+			restTemplate.postForLocation(orderURL(), map, String.class);
+			fail("Order with unknown item was accepted");
+		} catch (HttpServerErrorException e) {
+			assertEquals(before, orderRepository.count());
+		}
+	}
+
+	@Test
+	public void IsOrderRejectedWhileCatalogIsUnavailable() {
+		long before = orderRepository.count();
+		Order order = new Order(customer.getCustomerId());
+		order.addLine(1, CatalogStub.UNAVAILABLE_ITEM_ID);
+		try {
+			orderService.order(order);
+			fail("Order was accepted although its item could not be checked");
+		} catch (CatalogUnavailableException e) {
+			assertEquals(before, orderRepository.count());
+		}
+	}
+
+	@Test
+	public void IsNoOrderPricedWhileCatalogIsUnavailable() throws Exception {
+		long before = orderRepository.count();
+		Order order = new Order(customer.getCustomerId());
+		order.addLine(1, item.getItemId());
+		order.addLine(1, CatalogStub.UNAVAILABLE_ITEM_ID);
+		try {
+			orderService.orderAsync(order).get();
+			fail("Order was priced although an item could not be fetched");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CatalogUnavailableException);
+			assertEquals(before, orderRepository.count());
+		}
+		// Pricing on its own refuses the placeholders as well
+		Order placeholderOrder = new Order(customer.getCustomerId());
+		placeholderOrder.addLine(1, item.getItemId());
+		try {
+			placeholderOrder.price(Collections.singletonMap(item.getItemId(), Item.unavailable(item.getItemId())));
+			fail("Order was priced with a placeholder item");
+		} catch (CatalogUnavailableException e) {
+			assertEquals(0.0, placeholderOrder.getTotalPrice(), 0.0);
+		}
+	}
 }